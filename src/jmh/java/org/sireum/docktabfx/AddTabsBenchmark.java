@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.StackPane;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares adding tabs one at a time via {@link DockablePane#addTab} with a single {@link DockablePane#addTabs} call.
+ * <br>
+ * Each invocation adds the tabs to a fresh pane and forces a css and layout pass on the FX thread, which is what a
+ * pulse would do short of rendering.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddTabsBenchmark {
+
+    @Param({"500"})
+    public int tabs;
+
+    private Scene scene;
+    private DockablePane pane;
+    private Map<String, Node> contents;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws InterruptedException {
+        HeadlessFx.start();
+    }
+
+    // each invocation takes milliseconds, so the per-invocation setup does not skew its timing
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> {
+            pane = new DockablePane();
+            scene = new Scene(new StackPane(pane), 720, 480);
+            contents = new LinkedHashMap<>();
+            for (int i = 0; i < tabs; i++) {
+                contents.put("tab" + i, new TextArea("tab " + i));
+            }
+        });
+    }
+
+    @Benchmark
+    public void addTabLoop() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> {
+            contents.forEach(pane::addTab);
+            layout();
+        });
+    }
+
+    @Benchmark
+    public void addTabs() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> {
+            pane.addTabs(contents);
+            layout();
+        });
+    }
+
+    private void layout() {
+        scene.getRoot().applyCss();
+        scene.getRoot().layout();
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+package org.sireum.docktabfx;
+
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.SplitPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.shape.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame times while dragging the divider between two heavy (shape-filled) items of a SplitPane, per
+ * {@link DividerResizeMode}.
+ * <br>
+ * Each invocation is one frame: {@code eventsPerFrame} drag events reach the divider, held back drags are flushed as the
+ * pulse would, and a css and layout pass follows. It runs on the FX thread (where the throttling timer runs), so the
+ * hand-off to it is part of every mode's time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DividerDragBenchmark {
+
+    @Param({"LIVE", "THROTTLED", "DEFERRED"})
+    public DividerResizeMode mode;
+
+    @Param({"4"})
+    public int eventsPerFrame;
+
+    @Param({"10000"})
+    public int shapes;
+
+    private Scene scene;
+    private SplitPane splitPane;
+    private DividerResize dividerResize;
+    private Node divider;
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws InterruptedException {
+        HeadlessFx.start();
+        HeadlessFx.runAndWait(() -> {
+            final DockablePane pane = new DockablePane();
+            pane.setDividerResizeMode(mode);
+            splitPane = new SplitPane(createContent(), createContent());
+            scene = new Scene(new StackPane(splitPane, pane), 1280, 800);
+            dividerResize = new DividerResize(() -> pane);
+            dividerResize.install(splitPane);
+            layout();
+            divider = splitPane.lookup(".split-pane-divider");
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_PRESSED, 640));
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_RELEASED, 640)));
+    }
+
+    @Benchmark
+    public void frame() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> {
+            for (int i = 0; i < eventsPerFrame; i++) {
+                // back and forth around the middle
+                final double x = 640 + ((frame * eventsPerFrame + i) % 200) - 100;
+                Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_DRAGGED, x));
+            }
+            frame++;
+            dividerResize.flush(System.nanoTime());
+            layout();
+        });
+    }
+
+    private Pane createContent() {
+        final Pane content = new Pane();
+        for (int i = 0; i < shapes; i++) {
+            content.getChildren().add(new Rectangle(i % 640, (i * 7) % 800, 4, 4 + i % 16));
+        }
+        return content;
+    }
+
+    private void layout() {
+        scene.getRoot().applyCss();
+        scene.getRoot().layout();
+    }
+
+    private static MouseEvent mouseEvent(EventType<MouseEvent> type, double x) {
+        return new MouseEvent(type, x, 400, x, 400, MouseButton.PRIMARY, 1, false, false, false, false,
+                true, false, false, false, false, false, null);
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Orientation;
+import javafx.geometry.Side;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.layout.Region;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency (and, with {@code -prof gc}, allocation) of the {@link Dockable} operations on layouts of up to 10k tabs in
+ * up to 64 groups, arranged side by side or nested.
+ * <br>
+ * Every operation is timed once per iteration, on the FX thread, starting from the same layout: before each iteration
+ * (and outside the measurement) the pane is reset with the diff-based {@link DockablePane#applyModel}, so only the tabs
+ * and groups changed by the previous operation are rebuilt. {@link #handOff} times the hand-off to the FX thread alone,
+ * which is part of every other time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+public class DockOperationsBenchmark {
+
+    public enum Shape {
+        // every group side by side in the root split
+        WIDE,
+        // every group one split deeper than the previous one
+        DEEP
+    }
+
+    @Param({"10", "100", "1000", "10000"})
+    public int tabs;
+
+    @Param({"1", "8", "64"})
+    public int groups;
+
+    @Param({"WIDE", "DEEP"})
+    public Shape shape;
+
+    private DockablePane pane;
+    private DockModel layout;
+
+    // a tab in the middle of the layout, and a group other than its own (its own if there's only one)
+    private Tab tab;
+    private TabPane otherTabPane;
+
+    // the groups laid out as a grid of GRID x GRID pixels, for dropZoneHitTest
+    private static final int GRID = 1_000;
+    private final DropZoneIndex dropZones = new DropZoneIndex();
+    private int hitTestPoint;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws InterruptedException {
+        HeadlessFx.start();
+        layout = HeadlessFx.createLayout(tabs, groups, shape);
+        HeadlessFx.runAndWait(() -> {
+            pane = new DockablePane();
+            final int columns = (int) Math.ceil(Math.sqrt(groups));
+            final double size = (double) GRID / columns;
+            for (int i = 0; i < groups; i++) {
+                dropZones.add(new TabPane(), new BoundingBox(i % columns * size, i / columns * size, size, size),
+                        i / columns * size + 24);
+            }
+        });
+    }
+
+    // a single-shot iteration is a single invocation, so this restores the layout before every timed operation
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> {
+            pane.applyModel(layout, HeadlessFx.CONTENT);
+
+            final String tabId = "tab-" + tabs / 2;
+            tab = pane.getTab(tabId);
+            otherTabPane = null;
+            for (TabPane tabPane : pane.ensureSkin().getAttachedTabPanes()) {
+                if (otherTabPane == null || otherTabPane == tab.getTabPane()) {
+                    otherTabPane = tabPane;
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public void handOff() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> {
+        });
+    }
+
+    @Benchmark
+    public Tab addTab() throws InterruptedException {
+        return HeadlessFx.callAndWait(() -> pane.addTab("added", new Region()));
+    }
+
+    @Benchmark
+    public void removeTab() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> pane.removeTab(tab));
+    }
+
+    @Benchmark
+    public void removeAllOtherTabsInGroup() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> pane.removeAllOtherTabsInGroup(tab));
+    }
+
+    @Benchmark
+    public void removeAllOtherGroups() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> pane.removeAllOtherGroups(tab));
+    }
+
+    @Benchmark
+    public void splitTab() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> pane.splitTab(tab, Orientation.VERTICAL));
+    }
+
+    // what a drop of the tab's header does, into the middle of another group...
+    @Benchmark
+    public void dragMove() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> pane.ensureSkin().dock(tab, otherTabPane, null));
+    }
+
+    // ...or onto its edge
+    @Benchmark
+    public void dragSplit() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> pane.ensureSkin().dock(tab, otherTabPane, Side.RIGHT));
+    }
+
+    // what every mouse move of a drag does (with the index already built). the index is plain data, so this runs on
+    // the benchmark thread, and is too fast to be timed one call at a time
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public DropZoneIndex.DropZone dropZoneHitTest() {
+        hitTestPoint = (hitTestPoint + 7919) % (GRID * GRID);
+        return dropZones.find(hitTestPoint % GRID + 0.5, hitTestPoint / GRID + 0.5);
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+package org.sireum.docktabfx;
+
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Tab;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.shape.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame times while dragging a tab with heavy content (a chart-like pane of many shapes) across two groups.
+ * <br>
+ * The drag goes through the pane's own handlers: every drag event looks up the drop zone under the pointer and
+ * updates the drop preview, and with {@code ghost} also moves the {@link DragGhost} picture captured when the drag
+ * started. The content stays in its group until the drop. Each invocation is one frame on the FX thread:
+ * {@code eventsPerFrame} drag events, then the css and layout pass a pulse would do (short of rendering).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragFrameBenchmark {
+
+    private static final double WIDTH = 1280;
+    private static final double HEIGHT = 800;
+
+    @Param({"1000", "10000"})
+    public int shapes;
+
+    @Param({"false", "true"})
+    public boolean ghost;
+
+    @Param({"4"})
+    public int eventsPerFrame;
+
+    private Scene scene;
+    // the header of the dragged tab, which receives every event of the drag (like the scene's mouse grab does)
+    private Node header;
+    private int event;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws InterruptedException {
+        HeadlessFx.start();
+        HeadlessFx.runAndWait(() -> {
+            final DockablePane pane = new DockablePane();
+            pane.setDragGhost(ghost);
+            scene = new Scene(new StackPane(pane), WIDTH, HEIGHT);
+
+            final Pane chart = new Pane();
+            for (int i = 0; i < shapes; i++) {
+                chart.getChildren().add(new Rectangle(i % 640, (i * 7) % 400, 4, 4 + i % 16));
+            }
+            final Tab tab = pane.addTab("chart", chart);
+            final Tab other = pane.addTab("other", new Pane());
+            pane.splitTab(other, Orientation.VERTICAL); // side by side
+            layout();
+
+            header = tab.getGraphic();
+            Event.fireEvent(header, mouseEvent(MouseEvent.MOUSE_PRESSED, WIDTH / 4));
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws InterruptedException {
+        // released over the middle of its own group, so the tab stays where it is
+        HeadlessFx.runAndWait(() -> Event.fireEvent(header, mouseEvent(MouseEvent.MOUSE_RELEASED, WIDTH / 4)));
+    }
+
+    @Benchmark
+    public void frame() throws InterruptedException {
+        HeadlessFx.runAndWait(() -> {
+            for (int i = 0; i < eventsPerFrame; i++) {
+                // back and forth across both groups, through their middles and edges
+                final double x = (event++ * 37) % (2 * WIDTH);
+                Event.fireEvent(header, mouseEvent(MouseEvent.MOUSE_DRAGGED, x < WIDTH ? x : 2 * WIDTH - x));
+            }
+            layout();
+        });
+    }
+
+    private void layout() {
+        scene.getRoot().applyCss();
+        scene.getRoot().layout();
+    }
+
+    private static MouseEvent mouseEvent(EventType<MouseEvent> type, double x) {
+        return new MouseEvent(type, x, HEIGHT / 2, x, HEIGHT / 2, MouseButton.PRIMARY, 1, false, false, false, false,
+                true, false, false, false, false, false, null);
+    }
+
+}
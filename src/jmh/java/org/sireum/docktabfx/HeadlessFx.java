@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.layout.Region;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Starts the JavaFX toolkit on the headless Monocle platform (once per forked benchmark JVM), and builds the layouts
+ * the benchmarks run on.
+ * <br>
+ * Benchmarked panes are only created and changed on the FX thread, as in an application, so every measured time
+ * includes the hand-off to it ({@link DockOperationsBenchmark#handOff} measures that alone). The scenes are never
+ * shown: the measurements cover the dock bookkeeping (lists, listeners, indexes) and whatever css and layout pass a
+ * benchmark forces, but never rendering.
+ */
+final class HeadlessFx {
+
+    static final Function<String, Node> CONTENT = id -> new Region();
+
+    private static boolean started = false;
+
+    private HeadlessFx() {
+    }
+
+    static synchronized void start() throws InterruptedException {
+        if (!started) {
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+            final CountDownLatch latch = new CountDownLatch(1);
+            Platform.startup(latch::countDown);
+            latch.await();
+            Platform.setImplicitExit(false);
+            started = true;
+        }
+    }
+
+    // runs action on the FX thread and waits for it, for benchmarks whose subject is driven by pulses
+    static void runAndWait(Runnable action) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                action.run();
+            } finally {
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+
+    // like runAndWait, for actions with a result
+    static <T> T callAndWait(Supplier<T> action) throws InterruptedException {
+        final List<T> result = new ArrayList<>(1);
+        runAndWait(() -> result.add(action.get()));
+        return result.get(0);
+    }
+
+    // a layout of tabs spread round-robin over min(groups, tabs) groups, with tab ids "tab-0", "tab-1", ...
+    static DockModel createLayout(int tabs, int groups, DockOperationsBenchmark.Shape shape) {
+        final DockModel model = new DockModel();
+        final int groupCount = Math.max(1, Math.min(groups, tabs));
+        final DockModel.Group[] created = new DockModel.Group[groupCount];
+
+        DockModel.Split parent = model.getRoot();
+        for (int i = 0; i < groupCount; i++) {
+            if (shape == DockOperationsBenchmark.Shape.DEEP && i > 0 && i < groupCount - 1) {
+                final Orientation orientation = i % 2 == 0 ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+                parent = model.insertSplit(parent, parent.getItems().size(), "split-" + i, orientation);
+            }
+            created[i] = model.insertGroup(parent, parent.getItems().size(), "group-" + i);
+        }
+        for (int i = 0; i < tabs; i++) {
+            final DockModel.Group group = created[i % groupCount];
+            model.insertTab(group, group.getTabIds().size(), "tab-" + i, "tab " + i);
+        }
+        for (DockModel.Group group : created) {
+            model.setSelectedTabId(group, group.getTabIds().get(0));
+        }
+        model.validate();
+        return model;
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup cost of an application that opens many {@link DockablePane}s (e.g. one per project window).
+ * <br>
+ * {@code construct} only builds the panes and their tabs, while {@code firstFrame} also puts them in a scene and forces
+ * the first css and layout pass. Both run on the FX thread. The scene is never shown, so {@code firstFrame} leaves out
+ * the rest of the first pulse (syncing and rendering the scene graph) and is a lower bound for the first frame. Run
+ * with {@code -prof gc} to also report the allocations per invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int panes;
+
+    @Param({"0", "10"})
+    public int tabs;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws InterruptedException {
+        HeadlessFx.start();
+    }
+
+    @Benchmark
+    public List<DockablePane> construct() throws InterruptedException {
+        return HeadlessFx.callAndWait(this::createPanes);
+    }
+
+    @Benchmark
+    public Scene firstFrame() throws InterruptedException {
+        return HeadlessFx.callAndWait(() -> {
+            final VBox root = new VBox();
+            root.getChildren().addAll(createPanes());
+            final Scene scene = new Scene(root, 720, 480);
+            root.applyCss();
+            root.layout();
+            return scene;
+        });
+    }
+
+    private List<DockablePane> createPanes() {
+        final List<DockablePane> created = new ArrayList<>(panes);
+        for (int i = 0; i < panes; i++) {
+            final DockablePane pane = new DockablePane();
+            for (int j = 0; j < tabs; j++) {
+                pane.addTab("tab " + j, Region::new);
+            }
+            created.add(pane);
+        }
+        return created;
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.Orientation;
+import javafx.geometry.Side;
+import javafx.scene.control.Control;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TabPane;
+import javafx.util.Builder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// closed TabPanes and SplitPanes (with the skin's filters and listeners still installed), kept for reuse by the next
+// split instead of building, skinning and styling a new control. TabPanes are only reused while the pane's
+// tabPaneFactory is the one that built them, and a pooled container is first reset to the state it was built in
+final class ContainerPool {
+
+    static final int CAPACITY = 16;
+
+    // stands for "built by the default factory" in a pooled TabPane's properties
+    private static final Object DEFAULT_FACTORY = new Object();
+
+    private final Deque<TabPane> tabPanes = new ArrayDeque<>();
+    private final Deque<SplitPane> splitPanes = new ArrayDeque<>();
+
+    private long hits;
+    private long misses;
+
+    // a pooled TabPane built by factory (null for the default factory), or null if the pool has none
+    @Nullable
+    TabPane acquireTabPane(@Nullable Builder<TabPane> factory) {
+        final Object key = factory == null ? DEFAULT_FACTORY : factory;
+        final Iterator<TabPane> iterator = tabPanes.descendingIterator();
+        while (iterator.hasNext()) {
+            final TabPane tabPane = iterator.next();
+            iterator.remove();
+            // TabPanes of a factory that was since replaced are dropped
+            if (tabPane.getProperties().get(ContainerPool.class) == key) {
+                hits++;
+                return tabPane;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    @Nullable
+    SplitPane acquireSplitPane() {
+        final SplitPane splitPane = splitPanes.pollLast();
+        if (splitPane != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return splitPane;
+    }
+
+    // marks tabPane as built by factory, so it is only reused while factory is in use
+    static void tag(@NotNull TabPane tabPane, @Nullable Builder<TabPane> factory) {
+        tabPane.getProperties().put(ContainerPool.class, factory == null ? DEFAULT_FACTORY : factory);
+    }
+
+    // records the state control was built in (by the factory and the skin), which release restores
+    static void remember(@NotNull Control control) {
+        control.getProperties().put(Pristine.class, new Pristine(control));
+    }
+
+    // pools tabPane if it was closed empty and there is room
+    void release(@NotNull TabPane tabPane) {
+        if (tabPane.getTabs().isEmpty() && tabPanes.size() < CAPACITY
+                && tabPane.getProperties().containsKey(ContainerPool.class) && restore(tabPane)) {
+            tabPanes.addLast(tabPane);
+        }
+    }
+
+    // pools splitPane if it was closed empty and there is room
+    void release(@NotNull SplitPane splitPane) {
+        if (splitPane.getItems().isEmpty() && splitPanes.size() < CAPACITY && restore(splitPane)) {
+            splitPanes.addLast(splitPane);
+        }
+    }
+
+    // resets control to the state it was built in, or returns false if it was not remembered
+    private static boolean restore(@NotNull Control control) {
+        final Object pristine = control.getProperties().get(Pristine.class);
+        if (pristine instanceof Pristine) {
+            ((Pristine) pristine).restore(control);
+            return true;
+        }
+        return false;
+    }
+
+    void clear() {
+        tabPanes.clear();
+        splitPanes.clear();
+    }
+
+    boolean holds(@NotNull Object value) {
+        return tabPanes.contains(value) || splitPanes.contains(value);
+    }
+
+    long getHitCount() {
+        return hits;
+    }
+
+    long getMissCount() {
+        return misses;
+    }
+
+    // what the application may have changed on a group or split while it was in use: its css (id, style, style classes,
+    // inline style), user data and properties, and a TabPane's side, policies and tab sizes or a SplitPane's orientation
+    private static final class Pristine {
+
+        private final String id;
+        private final String style;
+        private final List<String> styleClass;
+        private final Object userData;
+        private final Map<Object, Object> properties;
+
+        private final Side side;
+        private final TabPane.TabClosingPolicy tabClosingPolicy;
+        private final TabPane.TabDragPolicy tabDragPolicy;
+        private final boolean rotateGraphic;
+        private final double[] tabSizes;
+        private final Orientation orientation;
+
+        Pristine(@NotNull Control control) {
+            id = control.getId();
+            style = control.getStyle();
+            styleClass = new ArrayList<>(control.getStyleClass());
+            userData = control.getUserData();
+            properties = new HashMap<>(control.getProperties());
+            if (control instanceof TabPane) {
+                final TabPane tabPane = (TabPane) control;
+                side = tabPane.getSide();
+                tabClosingPolicy = tabPane.getTabClosingPolicy();
+                tabDragPolicy = tabPane.getTabDragPolicy();
+                rotateGraphic = tabPane.isRotateGraphic();
+                tabSizes = new double[]{tabPane.getTabMinWidth(), tabPane.getTabMaxWidth(), tabPane.getTabMinHeight(),
+                        tabPane.getTabMaxHeight()};
+            } else {
+                side = null;
+                tabClosingPolicy = null;
+                tabDragPolicy = null;
+                rotateGraphic = false;
+                tabSizes = null;
+            }
+            orientation = control instanceof SplitPane ? ((SplitPane) control).getOrientation() : null;
+        }
+
+        void restore(@NotNull Control control) {
+            control.setId(id);
+            control.setStyle(style);
+            if (!control.getStyleClass().equals(styleClass)) {
+                control.getStyleClass().setAll(styleClass);
+            }
+            control.setUserData(userData);
+            final Map<Object, Object> current = control.getProperties();
+            current.keySet().retainAll(properties.keySet());
+            current.putAll(properties);
+            current.put(Pristine.class, this);
+            if (control instanceof TabPane) {
+                final TabPane tabPane = (TabPane) control;
+                tabPane.setSide(side);
+                tabPane.setTabClosingPolicy(tabClosingPolicy);
+                tabPane.setTabDragPolicy(tabDragPolicy);
+                tabPane.setRotateGraphic(rotateGraphic);
+                tabPane.setTabMinWidth(tabSizes[0]);
+                tabPane.setTabMaxWidth(tabSizes[1]);
+                tabPane.setTabMinHeight(tabSizes[2]);
+                tabPane.setTabMaxHeight(tabSizes[3]);
+            } else if (control instanceof SplitPane) {
+                ((SplitPane) control).setOrientation(orientation);
+            }
+        }
+
+    }
+
+}
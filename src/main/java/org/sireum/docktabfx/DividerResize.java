@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.animation.AnimationTimer;
+import javafx.event.Event;
+import javafx.geometry.Bounds;
+import javafx.geometry.Orientation;
+import javafx.scene.CacheHint;
+import javafx.scene.Node;
+import javafx.scene.control.SplitPane;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// applies the DividerResizeMode of a pane to the divider drags of its SplitPanes. the filters installed on each
+// SplitPane hold drag events back from the SplitPane's skin, and deliver only the latest one: once per pulse or
+// interval (THROTTLED), or on release (DEFERRED, while a ghost shows where the divider goes). outside LIVE the items of
+// the dragged SplitPane are cached for the duration of the drag
+final class DividerResize {
+
+    private static final String DIVIDER_STYLE_CLASS = "split-pane-divider";
+
+    @NotNull
+    private final Supplier<DockablePane> pane;
+
+    // the drag in progress (all null if none)
+    @Nullable
+    private SplitPane splitPane;
+    @Nullable
+    private Node divider;
+    @Nullable
+    private MouseEvent pending;
+
+    private DividerResizeMode mode = DividerResizeMode.LIVE;
+    private double pressX;
+    private double pressY;
+    private long lastDelivery;
+    private boolean delivering = false;
+
+    // the cache settings the items of splitPane had before the drag
+    private final Map<Node, CacheHint> cacheHints = new IdentityHashMap<>();
+    private final Map<Node, Boolean> caches = new IdentityHashMap<>();
+
+    // created on the first deferred drag
+    @Nullable
+    private Region ghost;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush(now);
+        }
+    };
+
+    DividerResize(@NotNull Supplier<DockablePane> pane) {
+        this.pane = pane;
+    }
+
+    void install(@NotNull SplitPane splitPane) {
+        splitPane.addEventFilter(MouseEvent.MOUSE_PRESSED, event -> pressed(splitPane, event));
+        splitPane.addEventFilter(MouseEvent.MOUSE_DRAGGED, event -> dragged(splitPane, event));
+        splitPane.addEventFilter(MouseEvent.MOUSE_RELEASED, event -> released(splitPane, event));
+    }
+
+    void dispose() {
+        finish();
+        if (ghost != null && ghost.getParent() instanceof DockablePane) {
+            ((DockablePane) ghost.getParent()).getDockChildren().remove(ghost);
+        }
+        ghost = null;
+    }
+
+    // whether a drag is being held back
+    boolean isDragging() {
+        return divider != null;
+    }
+
+    @Nullable
+    Region getGhost() {
+        return ghost;
+    }
+
+    // delivers the latest held back drag event if the interval has passed (called every pulse while throttling)
+    void flush(long now) {
+        final DockablePane skinnable = pane.get();
+        final long interval = skinnable == null ? 0 : skinnable.getDividerResizeInterval() * 1_000_000L;
+        if (pending != null && now - lastDelivery >= interval) {
+            deliver();
+            lastDelivery = now;
+        }
+    }
+
+    private void pressed(@NotNull SplitPane splitPane, @NotNull MouseEvent event) {
+        final DockablePane skinnable = pane.get();
+        final Node divider = findDivider(event, splitPane);
+        if (skinnable == null || divider == null || delivering
+                || skinnable.getDividerResizeMode() == DividerResizeMode.LIVE) {
+            return;
+        }
+        finish(); // (in case a release was missed)
+        this.splitPane = splitPane;
+        this.divider = divider;
+        mode = skinnable.getDividerResizeMode();
+        pressX = event.getSceneX();
+        pressY = event.getSceneY();
+        lastDelivery = 0;
+        for (Node item : splitPane.getItems()) {
+            caches.put(item, item.isCache());
+            cacheHints.put(item, item.getCacheHint());
+            item.setCache(true);
+            item.setCacheHint(CacheHint.SPEED);
+        }
+        if (mode == DividerResizeMode.THROTTLED) {
+            timer.start();
+        }
+    }
+
+    private void dragged(@NotNull SplitPane splitPane, @NotNull MouseEvent event) {
+        if (splitPane != this.splitPane || divider == null || delivering) {
+            return;
+        }
+        pending = event.copyFor(divider, divider);
+        event.consume();
+        if (mode == DividerResizeMode.DEFERRED) {
+            showGhost(event);
+        }
+    }
+
+    private void released(@NotNull SplitPane splitPane, @NotNull MouseEvent event) {
+        if (splitPane == this.splitPane && !delivering) {
+            deliver(); // the skin sees the latest position before the release
+            finish();
+        }
+    }
+
+    private void deliver() {
+        final MouseEvent event = pending;
+        final Node target = divider;
+        pending = null;
+        if (event != null && target != null) {
+            delivering = true;
+            try {
+                Event.fireEvent(target, event);
+            } finally {
+                delivering = false;
+            }
+        }
+    }
+
+    private void finish() {
+        timer.stop();
+        caches.forEach(Node::setCache);
+        cacheHints.forEach(Node::setCacheHint);
+        caches.clear();
+        cacheHints.clear();
+        if (ghost != null) {
+            ghost.setVisible(false);
+        }
+        splitPane = null;
+        divider = null;
+        pending = null;
+    }
+
+    private void showGhost(@NotNull MouseEvent event) {
+        final DockablePane skinnable = pane.get();
+        final Node divider = this.divider;
+        final SplitPane splitPane = this.splitPane;
+        if (skinnable == null || divider == null || splitPane == null) {
+            return;
+        }
+        final Bounds bounds = skinnable.sceneToLocal(divider.localToScene(divider.getLayoutBounds()));
+        if (bounds == null) {
+            return;
+        }
+        if (ghost == null) {
+            ghost = new Region();
+            ghost.getStyleClass().add("dock-divider-ghost");
+            ghost.setStyle("-fx-background-color: rgba(0, 120, 215, 0.6);");
+            ghost.setManaged(false);
+            ghost.setMouseTransparent(true);
+            skinnable.getDockChildren().add(ghost);
+        }
+        // the divider of a horizontal SplitPane moves along x
+        final boolean horizontal = splitPane.getOrientation() == Orientation.HORIZONTAL;
+        final double dx = horizontal ? event.getSceneX() - pressX : 0;
+        final double dy = horizontal ? 0 : event.getSceneY() - pressY;
+        ghost.resizeRelocate(bounds.getMinX() + dx, bounds.getMinY() + dy, bounds.getWidth(), bounds.getHeight());
+        ghost.toFront();
+        ghost.setVisible(true);
+    }
+
+    // the divider of splitPane (not of a nested one) that event targets, if any
+    @Nullable
+    private static Node findDivider(@NotNull MouseEvent event, @NotNull SplitPane splitPane) {
+        Node node = event.getTarget() instanceof Node ? (Node) event.getTarget() : null;
+        while (node != null && node != splitPane) {
+            if (node.getParent() == splitPane && node.getStyleClass().contains(DIVIDER_STYLE_CLASS)) {
+                return node;
+            }
+            node = node.getParent();
+        }
+        return null;
+    }
+
+}
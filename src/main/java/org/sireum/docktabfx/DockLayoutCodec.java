@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.Orientation;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// compact, versioned binary encoding of a DockModel:
+//
+//   layout := MAGIC:int VERSION:short split windowCount:varint window*
+//   window := x:double y:double width:double height:double split
+//   item   := GROUP:byte group | SPLIT:byte split
+//   split  := id:string orientation:byte itemCount:varint item* dividerCount:varint divider:double*
+//   group  := id:string selected:varint (index + 1, 0 if none) tabCount:varint (tabId:string title:string)*
+//   string := length:varint utf8-bytes
+//
+// dividers are written after the items because inserting items resets them (see DockModel). version 1 layouts (which
+// had no floating windows, so end after the main split) are still read
+final class DockLayoutCodec {
+
+    static final int MAGIC = 0x44544658; // "DTFX"
+    static final short VERSION = 2;
+
+    private static final byte GROUP = 0;
+    private static final byte SPLIT = 1;
+
+    // splits nested deeper are rejected as corrupt (a normalized layout alternates orientations, so real ones stay far
+    // below this), which also keeps the recursive reading well within the stack
+    static final int MAX_DEPTH = 256;
+
+    private DockLayoutCodec() {
+    }
+
+    static void write(@NotNull DockModel model, @NotNull Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(model, out);
+        }
+    }
+
+    static void write(@NotNull DockModel model, @NotNull OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        writeSplit(model, model.getRoot(), data);
+        writeVarInt(model.getWindows().size(), data);
+        for (DockModel.Window window : model.getWindows()) {
+            data.writeDouble(window.getX());
+            data.writeDouble(window.getY());
+            data.writeDouble(window.getWidth());
+            data.writeDouble(window.getHeight());
+            writeSplit(model, window.getRoot(), data);
+        }
+        data.flush();
+    }
+
+    private static void writeSplit(DockModel model, DockModel.Split split, DataOutputStream data) throws IOException {
+        writeString(split.getId(), data);
+        data.writeByte(split.getOrientation() == Orientation.HORIZONTAL ? 0 : 1);
+        writeVarInt(split.getItems().size(), data);
+        for (DockModel.Item item : split.getItems()) {
+            if (item instanceof DockModel.Group) {
+                data.writeByte(GROUP);
+                writeGroup(model, (DockModel.Group) item, data);
+            } else {
+                data.writeByte(SPLIT);
+                writeSplit(model, (DockModel.Split) item, data);
+            }
+        }
+        final double[] positions = split.getDividerPositions();
+        writeVarInt(positions.length, data);
+        for (double position : positions) {
+            data.writeDouble(position);
+        }
+    }
+
+    private static void writeGroup(DockModel model, DockModel.Group group, DataOutputStream data) throws IOException {
+        writeString(group.getId(), data);
+        final List<String> tabIds = group.getTabIds();
+        writeVarInt(group.getSelectedTabId() == null ? 0 : tabIds.indexOf(group.getSelectedTabId()) + 1, data);
+        writeVarInt(tabIds.size(), data);
+        for (String tabId : tabIds) {
+            writeString(tabId, data);
+            writeString(model.getTitle(tabId), data);
+        }
+    }
+
+    private static void writeString(String value, DataOutputStream data) throws IOException {
+        final byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, data);
+        data.write(bytes);
+    }
+
+    private static void writeVarInt(int value, DataOutputStream data) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    // reads the layout in a single pass over the memory-mapped file
+    @NotNull
+    static DockModel read(@NotNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @NotNull
+    static DockModel read(@NotNull ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a dock layout.");
+            }
+            final short version = buffer.getShort();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported dock layout version: " + version);
+            }
+            final DockModel model = new DockModel();
+            final String rootId = readString(buffer);
+            if (!DockModel.ROOT_ID.equals(rootId)) {
+                throw new IOException("Corrupt dock layout (unexpected root id).");
+            }
+            readSplit(model, model.getRoot(), buffer, 0);
+            final int windowCount = version == 1 ? 0 : readVarInt(buffer);
+            for (int i = 0; i < windowCount; i++) {
+                final double x = buffer.getDouble();
+                final double y = buffer.getDouble();
+                final double width = buffer.getDouble();
+                final double height = buffer.getDouble();
+                final DockModel.Window window = model.insertWindow(readString(buffer));
+                model.setWindowBounds(window, x, y, width, height);
+                readSplit(model, window.getRoot(), buffer, 0);
+            }
+            model.validate();
+            return model;
+        } catch (BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Corrupt dock layout.", e);
+        }
+    }
+
+    // reads the body of split (after its id), which is nested in depth splits
+    private static void readSplit(DockModel model, DockModel.Split split, ByteBuffer buffer, int depth)
+            throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Corrupt dock layout (nested too deeply).");
+        }
+        final byte orientationByte = buffer.get();
+        if (orientationByte != 0 && orientationByte != 1) {
+            throw new IOException("Corrupt dock layout (unknown orientation " + orientationByte + ").");
+        }
+        final Orientation orientation = orientationByte == 0 ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+        final int itemCount = readVarInt(buffer);
+        for (int i = 0; i < itemCount; i++) {
+            final byte tag = buffer.get();
+            if (tag == GROUP) {
+                readGroup(model, model.insertGroup(split, i, readString(buffer)), buffer);
+            } else if (tag == SPLIT) {
+                final String id = readString(buffer);
+                readSplit(model, model.insertSplit(split, i, id, Orientation.HORIZONTAL), buffer, depth + 1);
+            } else {
+                throw new IOException("Corrupt dock layout (unknown item " + tag + ").");
+            }
+        }
+        // checked before allocating, so a corrupt count cannot ask for more memory than the file holds
+        final int positionCount = readVarInt(buffer);
+        if (positionCount < 0 || positionCount * 8L > buffer.remaining()) {
+            throw new IOException("Corrupt dock layout (" + positionCount + " divider positions).");
+        }
+        final double[] positions = new double[positionCount];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = buffer.getDouble();
+        }
+        model.setSplitLayout(split, orientation, positions);
+    }
+
+    // reads the body of group (after its id)
+    private static void readGroup(DockModel model, DockModel.Group group, ByteBuffer buffer) {
+        final int selected = readVarInt(buffer);
+        final int tabCount = readVarInt(buffer);
+        String selectedTabId = null;
+        for (int i = 0; i < tabCount; i++) {
+            final String tabId = readString(buffer);
+            model.insertTab(group, i, tabId, readString(buffer));
+            if (i + 1 == selected) {
+                selectedTabId = tabId;
+            }
+        }
+        model.setSelectedTabId(group, selectedTabId);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = readVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (buffer.hasArray()) {
+            final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint.");
+    }
+
+}
@@ -0,0 +1,771 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.Orientation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// pure-data description of a DockablePane layout: a tree of splits (with orientation and divider positions) whose
+// leaves are groups of tab ids, plus one such tree per floating window. it never touches the scene graph, so it can be
+// built, mutated and validated on any thread (but is not thread-safe). DockablePane.getModel() takes a snapshot of a
+// pane and applyModel applies one back, changing only the parts of the scene graph that differ
+public final class DockModel {
+
+    public static final String ROOT_ID = "root";
+
+    // common base of Group and Split. ids are unique within a model
+    public abstract static class Item {
+        @NotNull
+        private final String id;
+
+        @Nullable
+        private Split parent;
+
+        private Item(@NotNull String id) {
+            this.id = id;
+        }
+
+        @NotNull
+        public final String getId() {
+            return id;
+        }
+
+        @Nullable
+        public final Split getParent() {
+            return parent;
+        }
+    }
+
+    // a group of tabs (shown by a TabPane)
+    public static final class Group extends Item {
+        private final List<String> tabIds = new ArrayList<>();
+
+        @Nullable
+        private String selectedTabId;
+
+        private Group(@NotNull String id) {
+            super(id);
+        }
+
+        @NotNull
+        public List<String> getTabIds() {
+            return Collections.unmodifiableList(tabIds);
+        }
+
+        @Nullable
+        public String getSelectedTabId() {
+            return selectedTabId;
+        }
+    }
+
+    // a split of groups and splits (shown by a SplitPane)
+    public static final class Split extends Item {
+        private final List<Item> items = new ArrayList<>();
+
+        @NotNull
+        private Orientation orientation;
+
+        // empty means "leave the divider positions to the SplitPane"
+        @NotNull
+        private double[] dividerPositions = new double[0];
+
+        private Split(@NotNull String id, @NotNull Orientation orientation) {
+            super(id);
+            this.orientation = orientation;
+        }
+
+        @NotNull
+        public List<Item> getItems() {
+            return Collections.unmodifiableList(items);
+        }
+
+        @NotNull
+        public Orientation getOrientation() {
+            return orientation;
+        }
+
+        @NotNull
+        public double[] getDividerPositions() {
+            return dividerPositions.clone();
+        }
+    }
+
+    // a floating window (a Stage of its own) with its screen bounds and the split tree it shows. the id of the window
+    // is also the id of its root split
+    public static final class Window {
+        @NotNull
+        private final Split root;
+
+        private double x;
+        private double y;
+        private double width;
+        private double height;
+
+        private Window(@NotNull String id) {
+            this.root = new Split(id, Orientation.HORIZONTAL);
+        }
+
+        @NotNull
+        public String getId() {
+            return root.getId();
+        }
+
+        @NotNull
+        public Split getRoot() {
+            return root;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getWidth() {
+            return width;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+    }
+
+    @NotNull
+    private final Split root = new Split(ROOT_ID, Orientation.HORIZONTAL);
+
+    private final List<Window> windows = new ArrayList<>();
+
+    private final Map<String, Item> itemsById = new HashMap<>();
+    private final Map<String, Group> groupsByTabId = new HashMap<>();
+    private final Map<String, String> titlesByTabId = new HashMap<>();
+
+    private int nextId = 1;
+
+    public DockModel() {
+        itemsById.put(ROOT_ID, root);
+    }
+
+    @NotNull
+    public DockModel copy() {
+        final DockModel copy = new DockModel();
+        copy.nextId = nextId;
+        copyItems(root, copy, copy.root);
+        for (Window window : windows) {
+            final Window windowCopy = copy.insertWindow(window.getId());
+            copy.setWindowBounds(windowCopy, window.x, window.y, window.width, window.height);
+            copyItems(window.root, copy, windowCopy.root);
+        }
+        return copy;
+    }
+
+    private void copyItems(Split from, DockModel copy, Split to) {
+        for (Item item : from.items) {
+            if (item instanceof Group) {
+                final Group group = copy.insertGroup(to, to.items.size(), item.getId());
+                for (String tabId : ((Group) item).tabIds) {
+                    copy.insertTab(group, group.tabIds.size(), tabId, titlesByTabId.get(tabId));
+                }
+                group.selectedTabId = ((Group) item).selectedTabId;
+            } else {
+                final Split split = (Split) item;
+                copyItems(split, copy, copy.insertSplit(to, to.items.size(), split.getId(), split.orientation));
+            }
+        }
+        // inserting items resets the divider positions, so they are copied last
+        to.orientation = from.orientation;
+        to.dividerPositions = from.dividerPositions.clone();
+    }
+
+    // queries
+
+    @NotNull
+    public Split getRoot() {
+        return root;
+    }
+
+    @Nullable
+    public Item getItem(@NotNull String id) {
+        return itemsById.get(id);
+    }
+
+    @Nullable
+    public Group getGroupOf(@NotNull String tabId) {
+        return groupsByTabId.get(tabId);
+    }
+
+    public boolean containsTab(@NotNull String tabId) {
+        return groupsByTabId.containsKey(tabId);
+    }
+
+    @Nullable
+    public String getTitle(@NotNull String tabId) {
+        return titlesByTabId.get(tabId);
+    }
+
+    public int getTabCount() {
+        return groupsByTabId.size();
+    }
+
+    // every group in depth-first order, those of the main tree first and then those of each floating window
+    @NotNull
+    public List<Group> getGroups() {
+        final List<Group> groups = new ArrayList<>();
+        collectGroups(root, groups);
+        for (Window window : windows) {
+            collectGroups(window.root, groups);
+        }
+        return groups;
+    }
+
+    // floating windows in the order they were undocked
+    @NotNull
+    public List<Window> getWindows() {
+        return Collections.unmodifiableList(windows);
+    }
+
+    @Nullable
+    public Window getWindow(@NotNull String windowId) {
+        for (Window window : windows) {
+            if (window.getId().equals(windowId)) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+    // the floating window showing item, or null if item is part of the main tree
+    @Nullable
+    public Window getWindowOf(@NotNull Item item) {
+        Item top = item;
+        while (top.parent != null) {
+            top = top.parent;
+        }
+        return top == root ? null : getWindow(top.getId());
+    }
+
+    // the left-/top-most group of the main tree (or null if there is none)
+    @Nullable
+    public Group getFirstGroup() {
+        Item item = root;
+        while (item instanceof Split && !((Split) item).items.isEmpty()) {
+            item = ((Split) item).items.get(0);
+        }
+        return item instanceof Group ? (Group) item : null;
+    }
+
+    private static void collectGroups(Split split, List<Group> groups) {
+        for (Item item : split.items) {
+            if (item instanceof Group) {
+                groups.add((Group) item);
+            } else {
+                collectGroups((Split) item, groups);
+            }
+        }
+    }
+
+    // mutations (mirroring the Dockable operations)
+
+    // adds a tab to the group with the given id, or to the first group (creating one if needed) if groupId is null
+    @NotNull
+    public Group addTab(@NotNull String tabId, @NotNull String title, @Nullable String groupId) {
+        if (groupsByTabId.containsKey(tabId)) {
+            throw new IllegalArgumentException("Duplicate tab id: " + tabId);
+        }
+        final Group group;
+        if (groupId != null) {
+            group = requireGroup(groupId);
+        } else {
+            final Group first = getFirstGroup();
+            group = first == null ? insertGroup(root, root.items.size(), generateId("group")) : first;
+        }
+        insertTab(group, group.tabIds.size(), tabId, title);
+        if (group.selectedTabId == null) {
+            group.selectedTabId = tabId;
+        }
+        return group;
+    }
+
+    public void removeTab(@NotNull String tabId) {
+        final Group group = requireGroupOf(tabId);
+        detachTab(group, tabId);
+        titlesByTabId.remove(tabId);
+        pruneIfEmpty(group);
+    }
+
+    public void moveTab(@NotNull String tabId, @NotNull String groupId, int index) {
+        final Group from = requireGroupOf(tabId);
+        final Group to = requireGroup(groupId);
+        final String title = titlesByTabId.get(tabId);
+        detachTab(from, tabId);
+        insertTab(to, Math.min(index, to.tabIds.size()), tabId, title);
+        if (to.selectedTabId == null) {
+            to.selectedTabId = tabId;
+        }
+        if (from != to) {
+            pruneIfEmpty(from);
+        }
+    }
+
+    // moves a tab into a new group next to its current one, like Dockable.splitTab. returns the new group, or null if
+    // the tab's group has only one tab (so there is nothing to split)
+    @Nullable
+    public Group splitTab(@NotNull String tabId, @NotNull Orientation orientation) {
+        final Group group = requireGroupOf(tabId);
+        final Split parent = Objects.requireNonNull(group.getParent());
+        if (group.tabIds.size() < 2) {
+            return null;
+        }
+        final String title = titlesByTabId.get(tabId);
+        detachTab(group, tabId);
+
+        final Orientation splitOrientation = oppositeOrientation(orientation);
+        final Group newGroup;
+        if (parent.items.size() < 2) {
+            parent.orientation = splitOrientation;
+            newGroup = insertGroup(parent, parent.items.size(), generateId("group"));
+        } else if (parent.orientation == splitOrientation) {
+            // a split of the parent's orientation would be merged into it (like the skin does), so skip it
+            newGroup = insertGroup(parent, parent.items.indexOf(group) + 1, generateId("group"));
+        } else { // if more than one, put group into a split
+            final int placement = parent.items.indexOf(group);
+            removeItem(group);
+            final Split split = insertSplit(parent, placement, generateId("split"), splitOrientation);
+            insertItem(split, 0, group);
+            newGroup = insertGroup(split, 1, generateId("group"));
+        }
+        insertTab(newGroup, 0, tabId, title);
+        newGroup.selectedTabId = tabId;
+        return newGroup;
+    }
+
+    // moves a tab into a new floating window with the given screen bounds, like Dockable.undockTab
+    @NotNull
+    public Window undockTab(@NotNull String tabId, double x, double y, double width, double height) {
+        final Group group = requireGroupOf(tabId);
+        final String title = titlesByTabId.get(tabId);
+        detachTab(group, tabId);
+        pruneIfEmpty(group);
+        final Window window = insertWindow(generateId("window"));
+        setWindowBounds(window, x, y, width, height);
+        final Group newGroup = insertGroup(window.root, 0, generateId("group"));
+        insertTab(newGroup, 0, tabId, title);
+        newGroup.selectedTabId = tabId;
+        return window;
+    }
+
+    // moves a group (with its tabs) into a new floating window with the given screen bounds, like Dockable.undockGroup
+    @NotNull
+    public Window undockGroup(@NotNull String groupId, double x, double y, double width, double height) {
+        final Group group = requireGroup(groupId);
+        final Split parent = Objects.requireNonNull(group.getParent());
+        removeItem(group);
+        pruneIfEmpty(parent);
+        final Window window = insertWindow(generateId("window"));
+        setWindowBounds(window, x, y, width, height);
+        insertItem(window.root, 0, group);
+        return window;
+    }
+
+    // moves a tab of a floating window back to the end of the first group of the main tree and selects it, like
+    // Dockable.redockTab. the window closes once it has no tabs left
+    public void redockTab(@NotNull String tabId) {
+        final Group group = requireGroupOf(tabId);
+        if (getWindowOf(group) == null) {
+            return; // already docked
+        }
+        final Group first = getFirstGroup();
+        final Group target = first == null ? insertGroup(root, root.items.size(), generateId("group")) : first;
+        moveTab(tabId, target.getId(), Integer.MAX_VALUE);
+        target.selectedTabId = tabId;
+    }
+
+    // redocks every tab of a floating window, closing it
+    public void redockWindow(@NotNull String windowId) {
+        final Window window = requireWindow(windowId);
+        for (Group group : new ArrayList<>(collectGroups(window.root))) {
+            for (String tabId : new ArrayList<>(group.tabIds)) {
+                redockTab(tabId);
+            }
+        }
+    }
+
+    // closes a floating window and its tabs
+    public void removeWindow(@NotNull String windowId) {
+        final Window window = requireWindow(windowId);
+        for (Group group : collectGroups(window.root)) {
+            removeGroup(group.getId());
+        }
+    }
+
+    public void setWindowBounds(@NotNull String windowId, double x, double y, double width, double height) {
+        setWindowBounds(requireWindow(windowId), x, y, width, height);
+    }
+
+    public void removeGroup(@NotNull String groupId) {
+        final Group group = requireGroup(groupId);
+        for (String tabId : group.tabIds) {
+            groupsByTabId.remove(tabId);
+            titlesByTabId.remove(tabId);
+        }
+        group.tabIds.clear();
+        pruneIfEmpty(group);
+    }
+
+    public void removeAllOtherGroups(@NotNull String groupId) {
+        final Group group = requireGroup(groupId);
+        for (Group other : getGroups()) {
+            if (other != group) {
+                removeGroup(other.getId());
+            }
+        }
+    }
+
+    public void removeAll() {
+        for (Group group : getGroups()) {
+            removeGroup(group.getId());
+        }
+    }
+
+    public void select(@NotNull String tabId) {
+        requireGroupOf(tabId).selectedTabId = tabId;
+    }
+
+    public void setTitle(@NotNull String tabId, @NotNull String title) {
+        requireGroupOf(tabId);
+        titlesByTabId.put(tabId, title);
+    }
+
+    public void setOrientation(@NotNull String splitId, @NotNull Orientation orientation) {
+        requireSplit(splitId).orientation = orientation;
+    }
+
+    // sets the divider positions of a split (one per gap between its items, or none for the SplitPane's defaults)
+    public void setDividerPositions(@NotNull String splitId, @NotNull double... positions) {
+        final Split split = requireSplit(splitId);
+        if (positions.length != 0 && positions.length != split.items.size() - 1) {
+            throw new IllegalArgumentException("Expected " + (split.items.size() - 1) + " divider positions.");
+        }
+        split.dividerPositions = positions.clone();
+    }
+
+    // throws IllegalStateException unless the model describes a layout that a DockablePane can show
+    public void validate() {
+        validate(root);
+        for (Window window : windows) {
+            if (window.root.items.isEmpty()) {
+                throw new IllegalStateException("Window " + window.getId() + " is empty.");
+            }
+            if (window.root.getParent() != null || itemsById.get(window.getId()) != window.root) {
+                throw new IllegalStateException("Window " + window.getId() + " is not indexed correctly.");
+            }
+            if (!(window.width >= 0 && window.height >= 0)) {
+                throw new IllegalStateException("Window " + window.getId() + " has invalid bounds.");
+            }
+            validate(window.root);
+        }
+    }
+
+    private void validate(Split split) {
+        if (split != root && split.items.isEmpty()) {
+            throw new IllegalStateException("Split " + split.getId() + " is empty.");
+        }
+        final double[] positions = split.dividerPositions;
+        if (positions.length != 0 && positions.length != split.items.size() - 1) {
+            throw new IllegalStateException("Split " + split.getId() + " has a wrong number of divider positions.");
+        }
+        double previous = 0;
+        for (double position : positions) {
+            if (position < previous || position > 1) {
+                throw new IllegalStateException("Split " + split.getId() + " has invalid divider positions.");
+            }
+            previous = position;
+        }
+        for (Item item : split.items) {
+            if (item.parent != split || itemsById.get(item.getId()) != item) {
+                throw new IllegalStateException("Item " + item.getId() + " is not indexed correctly.");
+            }
+            if (item instanceof Group) {
+                final Group group = (Group) item;
+                if (group.tabIds.isEmpty()) {
+                    throw new IllegalStateException("Group " + group.getId() + " is empty.");
+                }
+                if (group.selectedTabId != null && !group.tabIds.contains(group.selectedTabId)) {
+                    throw new IllegalStateException("Group " + group.getId() + " selects a foreign tab.");
+                }
+                for (String tabId : group.tabIds) {
+                    if (groupsByTabId.get(tabId) != group) {
+                        throw new IllegalStateException("Tab " + tabId + " is not indexed correctly.");
+                    }
+                }
+            } else {
+                validate((Split) item);
+            }
+        }
+    }
+
+    // e.g. root[H](group-1{tab1*, tab2}, split-2[V](group-3{tab3*})) window-4[H](group-5{tab4*})
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        append(root, builder);
+        for (Window window : windows) {
+            builder.append(' ');
+            append(window.root, builder);
+        }
+        return builder.toString();
+    }
+
+    private static void append(Item item, StringBuilder builder) {
+        builder.append(item.getId());
+        if (item instanceof Group) {
+            final Group group = (Group) item;
+            builder.append('{');
+            for (int i = 0; i < group.tabIds.size(); i++) {
+                final String tabId = group.tabIds.get(i);
+                builder.append(i == 0 ? "" : ", ").append(tabId).append(tabId.equals(group.selectedTabId) ? "*" : "");
+            }
+            builder.append('}');
+        } else {
+            final Split split = (Split) item;
+            builder.append(split.orientation == Orientation.HORIZONTAL ? "[H](" : "[V](");
+            for (int i = 0; i < split.items.size(); i++) {
+                builder.append(i == 0 ? "" : ", ");
+                append(split.items.get(i), builder);
+            }
+            builder.append(')');
+        }
+    }
+
+    // package-private builders used when taking a snapshot of (or restoring) a pane, with explicit ids
+
+    @NotNull
+    Group insertGroup(@NotNull Split parent, int index, @NotNull String id) {
+        final Group group = new Group(id);
+        register(group);
+        insertItem(parent, index, group);
+        return group;
+    }
+
+    @NotNull
+    Split insertSplit(@NotNull Split parent, int index, @NotNull String id, @NotNull Orientation orientation) {
+        final Split split = new Split(id, orientation);
+        register(split);
+        insertItem(parent, index, split);
+        return split;
+    }
+
+    void insertTab(@NotNull Group group, int index, @NotNull String tabId, @Nullable String title) {
+        if (groupsByTabId.putIfAbsent(tabId, group) != null) {
+            throw new IllegalArgumentException("Duplicate tab id: " + tabId);
+        }
+        group.tabIds.add(index, tabId);
+        titlesByTabId.put(tabId, title == null ? "" : title);
+    }
+
+    void setSelectedTabId(@NotNull Group group, @Nullable String tabId) {
+        group.selectedTabId = tabId;
+    }
+
+    @NotNull
+    Window insertWindow(@NotNull String id) {
+        final Window window = new Window(id);
+        register(window.root);
+        windows.add(window);
+        return window;
+    }
+
+    void setWindowBounds(@NotNull Window window, double x, double y, double width, double height) {
+        window.x = x;
+        window.y = y;
+        window.width = width;
+        window.height = height;
+    }
+
+    void setSplitLayout(@NotNull Split split, @NotNull Orientation orientation, @NotNull double[] dividerPositions) {
+        split.orientation = orientation;
+        split.dividerPositions = dividerPositions.clone();
+    }
+
+    // internals
+
+    private void register(Item item) {
+        if (itemsById.putIfAbsent(item.getId(), item) != null) {
+            throw new IllegalArgumentException("Duplicate item id: " + item.getId());
+        }
+    }
+
+    private String generateId(String prefix) {
+        String id;
+        do {
+            id = prefix + "-" + nextId++;
+        } while (itemsById.containsKey(id));
+        return id;
+    }
+
+    private static void insertItem(Split parent, int index, Item item) {
+        parent.items.add(index, item);
+        parent.dividerPositions = new double[0]; // structure changed, so previous positions no longer apply
+        item.parent = parent;
+    }
+
+    private static void removeItem(Item item) {
+        final Split parent = Objects.requireNonNull(item.parent);
+        parent.items.remove(item);
+        parent.dividerPositions = new double[0];
+        item.parent = null;
+    }
+
+    private void detachTab(Group group, String tabId) {
+        final int index = group.tabIds.indexOf(tabId);
+        group.tabIds.remove(index);
+        groupsByTabId.remove(tabId);
+        if (tabId.equals(group.selectedTabId)) {
+            // like TabPane, select the neighbour of the removed tab
+            group.selectedTabId = group.tabIds.isEmpty() ? null : group.tabIds.get(Math.max(0, index - 1));
+        }
+    }
+
+    // removes empty groups, and then every split that became empty (except the root). a floating window is closed
+    // once its root split is empty
+    private void pruneIfEmpty(Item item) {
+        while (item.parent != null && isEmpty(item)) {
+            final Split parent = item.parent;
+            removeItem(item);
+            itemsById.remove(item.getId());
+            item = parent;
+        }
+        final Item top = item;
+        if (top != root && isEmpty(top)) {
+            windows.removeIf(window -> window.root == top);
+            itemsById.remove(top.getId());
+        } else if (top instanceof Split) {
+            collapseIfSingle((Split) top);
+        }
+    }
+
+    // keeps the tree normalized the way DockableSkin keeps its SplitPanes: a split left with a single item is replaced
+    // by that item (merged into the parent if it is a split of the parent's orientation), and a root left with a
+    // single split takes over its items and orientation
+    private void collapseIfSingle(Split split) {
+        if (split.items.size() != 1) {
+            return;
+        }
+        final Item only = split.items.get(0);
+        final Split parent = split.getParent();
+        if (parent != null) {
+            final int index = parent.items.indexOf(split);
+            final double[] positions = parent.dividerPositions;
+            removeItem(split);
+            itemsById.remove(split.getId());
+            removeItem(only);
+            if (only instanceof Split && ((Split) only).orientation == parent.orientation) {
+                moveItems((Split) only, parent, index);
+            } else {
+                insertItem(parent, index, only);
+                parent.dividerPositions = positions; // the same number of items
+            }
+        } else if (only instanceof Split) {
+            final Split child = (Split) only;
+            final double[] positions = child.dividerPositions;
+            removeItem(child);
+            itemsById.remove(child.getId());
+            split.orientation = child.orientation;
+            moveItems(child, split, 0);
+            split.dividerPositions = positions;
+        }
+    }
+
+    // moves the items of from (which is discarded) into to, starting at index
+    private static void moveItems(Split from, Split to, int index) {
+        for (Item item : new ArrayList<>(from.items)) {
+            removeItem(item);
+            insertItem(to, index++, item);
+        }
+    }
+
+    @NotNull
+    private static List<Group> collectGroups(Split split) {
+        final List<Group> groups = new ArrayList<>();
+        collectGroups(split, groups);
+        return groups;
+    }
+
+    private static boolean isEmpty(Item item) {
+        return item instanceof Group ? ((Group) item).tabIds.isEmpty() : ((Split) item).items.isEmpty();
+    }
+
+    @NotNull
+    private Group requireGroup(String groupId) {
+        final Item item = itemsById.get(groupId);
+        if (!(item instanceof Group)) {
+            throw new IllegalArgumentException("No group with id: " + groupId);
+        }
+        return (Group) item;
+    }
+
+    @NotNull
+    private Split requireSplit(String splitId) {
+        final Item item = itemsById.get(splitId);
+        if (!(item instanceof Split)) {
+            throw new IllegalArgumentException("No split with id: " + splitId);
+        }
+        return (Split) item;
+    }
+
+    @NotNull
+    private Window requireWindow(String windowId) {
+        final Window window = getWindow(windowId);
+        if (window == null) {
+            throw new IllegalArgumentException("No window with id: " + windowId);
+        }
+        return window;
+    }
+
+    @NotNull
+    private Group requireGroupOf(String tabId) {
+        final Group group = groupsByTabId.get(tabId);
+        if (group == null) {
+            throw new IllegalArgumentException("No tab with id: " + tabId);
+        }
+        return group;
+    }
+
+    private static Orientation oppositeOrientation(Orientation orientation) {
+        return orientation == Orientation.HORIZONTAL ? Orientation.VERTICAL : Orientation.HORIZONTAL;
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.Tab;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// tab mutations requested from any thread, applied on the FX thread once per pulse (up to the pane's
+// pulseWorkBudget per pulse, in request order). the adds of a pulse are coalesced into as few changes as possible
+final class DockMutationQueue {
+
+    private final DockablePane pane;
+    private final Queue<Mutation> queue = new ConcurrentLinkedQueue<>();
+
+    // true from the first enqueue until the queue was found empty on the FX thread
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    // only accessed on the FX thread
+    private AnimationTimer timer;
+
+    DockMutationQueue(@NotNull DockablePane pane) {
+        this.pane = pane;
+    }
+
+    @NotNull
+    CompletableFuture<Tab> addTab(@NotNull String name, @NotNull Supplier<? extends Node> content) {
+        final CompletableFuture<Tab> future = new CompletableFuture<>();
+        enqueue(new Add(name, content, future));
+        return future;
+    }
+
+    @NotNull
+    CompletableFuture<Void> removeTab(@NotNull Tab tab) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        enqueue(new Remove(tab, future));
+        return future;
+    }
+
+    private void enqueue(@NotNull Mutation mutation) {
+        queue.add(mutation);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::start);
+        }
+    }
+
+    private void start() {
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    drain();
+                }
+            };
+        }
+        timer.start();
+    }
+
+    private void drain() {
+        final List<Mutation> mutations = new ArrayList<>();
+        final int budget = Math.max(1, pane.getPulseWorkBudget());
+        Mutation mutation;
+        while (mutations.size() < budget && (mutation = queue.poll()) != null) {
+            mutations.add(mutation);
+        }
+
+        if (!mutations.isEmpty()) {
+            pane.batch(dockable -> apply(mutations));
+        }
+
+        if (queue.isEmpty()) {
+            timer.stop();
+            scheduled.set(false);
+            // a mutation enqueued after the check above may have seen scheduled == true, so check once more
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                timer.start();
+            }
+        }
+    }
+
+    private void apply(@NotNull List<Mutation> mutations) {
+        final DockableSkin skin = pane.ensureSkin();
+        final List<Add> adds = new ArrayList<>();
+        for (Mutation mutation : mutations) {
+            if (mutation instanceof Add) {
+                adds.add((Add) mutation);
+            } else {
+                // keep the requested order: adds before this removal are applied first
+                addAll(skin, adds);
+                adds.clear();
+                ((Remove) mutation).apply(skin);
+            }
+        }
+        addAll(skin, adds);
+    }
+
+    private static void addAll(@NotNull DockableSkin skin, @NotNull List<Add> adds) {
+        if (adds.isEmpty()) {
+            return;
+        }
+        final List<String> names = new ArrayList<>(adds.size());
+        final List<Supplier<? extends Node>> contents = new ArrayList<>(adds.size());
+        for (Add add : adds) {
+            names.add(add.name);
+            contents.add(add.content);
+        }
+
+        final List<Tab> tabs;
+        try {
+            tabs = skin.addTabs(names, contents);
+        } catch (RuntimeException e) {
+            adds.forEach(add -> add.future.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < adds.size(); i++) {
+            adds.get(i).future.complete(tabs.get(i));
+        }
+    }
+
+    private interface Mutation {
+    }
+
+    private static final class Add implements Mutation {
+        private final String name;
+        private final Supplier<? extends Node> content;
+        private final CompletableFuture<Tab> future;
+
+        Add(String name, Supplier<? extends Node> content, CompletableFuture<Tab> future) {
+            this.name = name;
+            this.content = content;
+            this.future = future;
+        }
+    }
+
+    private static final class Remove implements Mutation {
+        private final Tab tab;
+        private final CompletableFuture<Void> future;
+
+        Remove(Tab tab, CompletableFuture<Void> future) {
+            this.tab = tab;
+            this.future = future;
+        }
+
+        void apply(@NotNull DockableSkin skin) {
+            try {
+                skin.removeTab(tab);
+                future.complete(null);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+}
@@ -30,11 +30,23 @@ import javafx.scene.Node;
 import javafx.scene.control.Tab;
 import org.jetbrains.annotations.NotNull;
 
-interface Dockable {
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public interface Dockable {
 
     @NotNull
     Tab addTab(@NotNull String text, @NotNull Node content);
 
+    // content is only built once the tab is first selected
+    @NotNull
+    Tab addTab(@NotNull String text, @NotNull Supplier<? extends Node> content);
+
+    // adds one tab per entry (in iteration order) as a single change to the target TabPane
+    @NotNull
+    List<Tab> addTabs(@NotNull Map<String, ? extends Node> contents);
+
     void removeTab(@NotNull Tab tab);
     void splitTab(@NotNull Tab tab, @NotNull Orientation orientation);
 
@@ -45,5 +57,15 @@ interface Dockable {
     void removeAllOtherGroups(@NotNull Tab tab);
     void removeAll();
 
+    // moves tab (keeping its content) into a floating window of its own, which is laid out independently of the pane
+    void undockTab(@NotNull Tab tab);
+
+    // moves tab's whole group into a floating window of its own
+    void undockGroup(@NotNull Tab tab);
+
+    // moves tab from a floating window back to the end of the pane's first (left- or top-most) group, closing the
+    // window once it is empty
+    void redockTab(@NotNull Tab tab);
+
 
 }
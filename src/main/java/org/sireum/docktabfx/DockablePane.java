@@ -25,26 +25,61 @@
 
 package org.sireum.docktabfx;
 
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.ObservableList;
+import javafx.event.EventHandler;
 import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Control;
+import javafx.scene.control.Skin;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.util.Builder;
 import javafx.util.Callback;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-public class DockablePane extends Control implements Dockable {
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-    // DockModel has addGroup, removeGroup,
+public class DockablePane extends Control implements Dockable {
 
     // todo SplitPane factory (and TabFactory?)
     private ObjectProperty<Builder<TabPane>> tabPaneFactory = null;
+    // called on demand whenever a tab's context menu is requested (null falls back to the shared default menu)
     private ObjectProperty<Callback<Tab, ContextMenu>> contextMenuFactory = null;
+    private ObjectProperty<TabHibernationPolicy> hibernationPolicy = null;
+    // maximum number of tabs added or removed asynchronously per pulse (the rest waits for the next pulses)
+    private IntegerProperty pulseWorkBudget = null;
+    // if true, tabs closed through Dockable are detached from everything the pane installed (see DockableSkin.release)
+    private BooleanProperty releaseClosedTabs = null;
+    // if true, a dragged tab is shown as a cached picture that follows the pointer, see DragGhost
+    private BooleanProperty dragGhost = null;
+    private ObjectProperty<EventHandler<TabVisibilityEvent>> onTabVisibilityChanged = null;
+    private ObjectProperty<DividerResizeMode> dividerResizeMode = null;
+    // with DividerResizeMode.THROTTLED, the minimum time between two resizes in milliseconds (0 means once per pulse)
+    private IntegerProperty dividerResizeInterval = null;
+    private ObjectProperty<TabTargetPolicy> tabTargetPolicy = null;
+
+    private static final int DEFAULT_PULSE_WORK_BUDGET = 256;
+
+    // tabs added or removed from other threads, see addTabAsync and removeTabAsync
+    private final DockMutationQueue mutations = new DockMutationQueue(this);
 
     public final ObjectProperty<Builder<TabPane>> tabPaneFactoryProperty() {
         if (tabPaneFactory == null) {
@@ -78,51 +113,394 @@ public class DockablePane extends Control implements Dockable {
         return contextMenuFactory == null ? null : contextMenuFactory.get();
     }
 
+    public final ObjectProperty<TabHibernationPolicy> hibernationPolicyProperty() {
+        if (hibernationPolicy == null) {
+            hibernationPolicy = new SimpleObjectProperty<>(this, "hibernationPolicy");
+            // apply a new policy right away instead of on the next selection
+            hibernationPolicy.addListener(observable -> {
+                final DockableSkin skin = (DockableSkin) getSkin();
+                if (skin != null) {
+                    skin.enforceHibernationPolicy();
+                }
+            });
+        }
+        return hibernationPolicy;
+    }
+
+    public final void setHibernationPolicy(TabHibernationPolicy value) {
+        hibernationPolicyProperty().set(value);
+    }
+
+    @Nullable
+    public final TabHibernationPolicy getHibernationPolicy() {
+        return hibernationPolicy == null ? null : hibernationPolicy.get();
+    }
+
+    public final IntegerProperty pulseWorkBudgetProperty() {
+        if (pulseWorkBudget == null) {
+            pulseWorkBudget = new SimpleIntegerProperty(this, "pulseWorkBudget", DEFAULT_PULSE_WORK_BUDGET);
+        }
+        return pulseWorkBudget;
+    }
+
+    public final void setPulseWorkBudget(int value) {
+        pulseWorkBudgetProperty().set(value);
+    }
+
+    public final int getPulseWorkBudget() {
+        return pulseWorkBudget == null ? DEFAULT_PULSE_WORK_BUDGET : pulseWorkBudget.get();
+    }
+
+    // when set, closed tabs lose their content, context menu and the pane's listeners (so they, and what they show,
+    // can be collected), which means they can no longer be added back. closed groups are not pooled either
+    public final BooleanProperty releaseClosedTabsProperty() {
+        if (releaseClosedTabs == null) {
+            releaseClosedTabs = new SimpleBooleanProperty(this, "releaseClosedTabs", false);
+        }
+        return releaseClosedTabs;
+    }
+
+    public final void setReleaseClosedTabs(boolean value) {
+        releaseClosedTabsProperty().set(value);
+    }
+
+    public final boolean isReleaseClosedTabs() {
+        return releaseClosedTabs != null && releaseClosedTabs.get();
+    }
+
+    // when set, dragging a tab shows a downscaled picture of its header and content, captured once when the drag starts.
+    // only the picture moves during the gesture; the tab (and its content) moves once, on drop
+    public final BooleanProperty dragGhostProperty() {
+        if (dragGhost == null) {
+            dragGhost = new SimpleBooleanProperty(this, "dragGhost", false);
+        }
+        return dragGhost;
+    }
+
+    public final void setDragGhost(boolean value) {
+        dragGhostProperty().set(value);
+    }
+
+    public final boolean isDragGhost() {
+        return dragGhost != null && dragGhost.get();
+    }
+
+    // how the content of splits follows a dragged divider
+    public final ObjectProperty<DividerResizeMode> dividerResizeModeProperty() {
+        if (dividerResizeMode == null) {
+            dividerResizeMode = new SimpleObjectProperty<>(this, "dividerResizeMode", DividerResizeMode.LIVE);
+        }
+        return dividerResizeMode;
+    }
+
+    public final void setDividerResizeMode(DividerResizeMode value) {
+        dividerResizeModeProperty().set(value);
+    }
+
+    @NotNull
+    public final DividerResizeMode getDividerResizeMode() {
+        return dividerResizeMode == null || dividerResizeMode.get() == null
+                ? DividerResizeMode.LIVE : dividerResizeMode.get();
+    }
+
+    public final IntegerProperty dividerResizeIntervalProperty() {
+        if (dividerResizeInterval == null) {
+            dividerResizeInterval = new SimpleIntegerProperty(this, "dividerResizeInterval", 0);
+        }
+        return dividerResizeInterval;
+    }
+
+    public final void setDividerResizeInterval(int value) {
+        dividerResizeIntervalProperty().set(value);
+    }
+
+    public final int getDividerResizeInterval() {
+        return dividerResizeInterval == null ? 0 : Math.max(0, dividerResizeInterval.get());
+    }
+
+    // which group addTab (and the other methods adding tabs) puts new tabs in
+    public final ObjectProperty<TabTargetPolicy> tabTargetPolicyProperty() {
+        if (tabTargetPolicy == null) {
+            tabTargetPolicy = new SimpleObjectProperty<>(this, "tabTargetPolicy", TabTargetPolicy.FIRST_GROUP);
+        }
+        return tabTargetPolicy;
+    }
+
+    public final void setTabTargetPolicy(TabTargetPolicy value) {
+        tabTargetPolicyProperty().set(value);
+    }
+
+    @NotNull
+    public final TabTargetPolicy getTabTargetPolicy() {
+        return tabTargetPolicy == null || tabTargetPolicy.get() == null
+                ? TabTargetPolicy.FIRST_GROUP : tabTargetPolicy.get();
+    }
+
+    // the group (TabPane) the user last worked in: the last one pressed, or given a tab by a drop or a split. it may be
+    // a group of a floating window, and it is null while the pane has no groups
+    public final ReadOnlyObjectProperty<TabPane> activeGroupProperty() {
+        final DockableSkin skin = ensureSkin();
+        return skin.activeGroupProperty();
+    }
+
+    @Nullable
+    public final TabPane getActiveGroup() {
+        final DockableSkin skin = (DockableSkin) getSkin();
+        return skin == null ? null : skin.getActiveGroup();
+    }
+
+    // called (at most once per pulse, after layout) with the tabs that became visible and those that stopped being
+    // visible, see TabVisibilityEvent
+    public final ObjectProperty<EventHandler<TabVisibilityEvent>> onTabVisibilityChangedProperty() {
+        if (onTabVisibilityChanged == null) {
+            onTabVisibilityChanged = new SimpleObjectProperty<>(this, "onTabVisibilityChanged");
+            onTabVisibilityChanged.addListener((observable, oldHandler, newHandler) ->
+                    setEventHandler(TabVisibilityEvent.TAB_VISIBILITY_CHANGED, newHandler));
+        }
+        return onTabVisibilityChanged;
+    }
+
+    public final void setOnTabVisibilityChanged(EventHandler<TabVisibilityEvent> value) {
+        onTabVisibilityChangedProperty().set(value);
+    }
+
+    @Nullable
+    public final EventHandler<TabVisibilityEvent> getOnTabVisibilityChanged() {
+        return onTabVisibilityChanged == null ? null : onTabVisibilityChanged.get();
+    }
+
+    // whether tab was visible after the last layout pass, see TabVisibilityEvent
+    public boolean isTabVisible(@NotNull Tab tab) {
+        final DockableSkin skin = ensureSkin();
+        return skin.isTabVisible(tab);
+    }
+
+    // number of times the content of a tab was released by the hibernation policy
+    public long getHibernationCount() {
+        final DockableSkin skin = ensureSkin();
+        return skin.getHibernationCount();
+    }
+
+    // number of times the content of a hibernated tab was restored
+    public long getRestoreCount() {
+        final DockableSkin skin = ensureSkin();
+        return skin.getRestoreCount();
+    }
+
+    // number of TabPanes and SplitPanes reused from the pool of closed ones (instead of built)
+    public long getPoolHitCount() {
+        final DockableSkin skin = ensureSkin();
+        return skin.getPoolHitCount();
+    }
+
+    // number of TabPanes and SplitPanes built because the pool had none to reuse
+    public long getPoolMissCount() {
+        final DockableSkin skin = ensureSkin();
+        return skin.getPoolMissCount();
+    }
+
+    // lets the skin lay overlays (e.g. the drop preview) over its node
+    @NotNull
+    ObservableList<Node> getDockChildren() {
+        return getChildren();
+    }
+
+    // the skin (and with it the root SplitPane) is only created by the first css pass or by the first call that needs
+    // it, so panes that are built but not shown yet cost little more than the control itself
     public DockablePane() {
-        setSkin(new DockableSkin());
+        // replaces the TabPane's own Ctrl+Tab (next tab of the focused group) with the switcher over every group
+        addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.TAB && event.isControlDown()) {
+                event.consume();
+                showTabSwitcher(!event.isShiftDown());
+            }
+        });
+    }
+
+    @Override
+    protected Skin<?> createDefaultSkin() {
+        return new DockableSkin();
+    }
+
+    @NotNull
+    DockableSkin ensureSkin() {
+        if (getSkin() == null) {
+            setSkin(createDefaultSkin());
+        }
+        return (DockableSkin) getSkin();
     }
 
     @NotNull
     @Override
     public Tab addTab(@NotNull String name, @NotNull Node content) {
-        final DockableSkin skin = (DockableSkin) getSkin();
+        final DockableSkin skin = ensureSkin();
+        return skin.addTab(name, content);
+    }
+
+    @NotNull
+    @Override
+    public Tab addTab(@NotNull String name, @NotNull Supplier<? extends Node> content) {
+        final DockableSkin skin = ensureSkin();
         return skin.addTab(name, content);
     }
 
+    @NotNull
+    @Override
+    public List<Tab> addTabs(@NotNull Map<String, ? extends Node> contents) {
+        final DockableSkin skin = ensureSkin();
+        return skin.addTabs(contents);
+    }
+
     @Override
     public void removeTab(@NotNull Tab tab) {
-        final DockableSkin skin = (DockableSkin) getSkin();
+        final DockableSkin skin = ensureSkin();
         skin.removeTab(tab);
     }
 
     @Override
     public void removeAllOtherTabsInGroup(@NotNull Tab tab) {
-        final DockableSkin skin = (DockableSkin) getSkin();
+        final DockableSkin skin = ensureSkin();
         skin.removeAllOtherTabsInGroup(tab);
     }
 
     @Override
     public void removeGroup(@NotNull Tab tab) {
-        final DockableSkin skin = (DockableSkin) getSkin();
+        final DockableSkin skin = ensureSkin();
         skin.removeGroup(tab);
     }
 
     @Override
     public void removeAllOtherGroups(@NotNull Tab tab) {
-        final DockableSkin skin = (DockableSkin) getSkin();
+        final DockableSkin skin = ensureSkin();
         skin.removeAllOtherGroups(tab);
     }
 
     @Override
     public void removeAll() {
-        final DockableSkin skin = (DockableSkin) getSkin();
+        final DockableSkin skin = ensureSkin();
         skin.removeAll();
     }
 
     @Override
     public void splitTab(@NotNull Tab tab, @NotNull Orientation orientation) {
-        final DockableSkin skin = (DockableSkin) getSkin();
+        final DockableSkin skin = ensureSkin();
         skin.splitTab(tab, orientation);
     }
 
+    @Override
+    public void undockTab(@NotNull Tab tab) {
+        final DockableSkin skin = ensureSkin();
+        skin.undockTab(tab);
+    }
+
+    @Override
+    public void undockGroup(@NotNull Tab tab) {
+        final DockableSkin skin = ensureSkin();
+        skin.undockGroup(tab);
+    }
+
+    @Override
+    public void redockTab(@NotNull Tab tab) {
+        final DockableSkin skin = ensureSkin();
+        skin.redockTab(tab);
+    }
+
+    // the id tab was given when it was first added, which identifies it in getTab(id), DockModel and saved layouts. it
+    // is kept in the tab's properties, so Tab.getId() (the css id) stays free for the application
+    @NotNull
+    public static String getTabId(@NotNull Tab tab) {
+        return DockableSkin.tabIdOf(tab);
+    }
+
+    // the open tab with the given id (see getTabId(tab)), in O(1)
+    @Nullable
+    public Tab getTab(@NotNull String id) {
+        final DockableSkin skin = ensureSkin();
+        return skin.getTab(id);
+    }
+
+    // up to limit open tabs whose title starts with titlePrefix (ignoring case), sorted by title
+    @NotNull
+    public List<Tab> findTabs(@NotNull String titlePrefix, int limit) {
+        final DockableSkin skin = ensureSkin();
+        return skin.findTabs(titlePrefix, limit);
+    }
+
+    // read-only list of every open tab, floating windows included. it is updated in place (with one change per added,
+    // closed or moved tab or group) so observers never have to walk the tree. a moved tab is listed last
+    @NotNull
+    public ObservableList<Tab> getAllTabs() {
+        final DockableSkin skin = ensureSkin();
+        return skin.getTabLists().getTabs();
+    }
+
+    // read-only list of every group (TabPane) of the layout, floating windows included, updated like getAllTabs()
+    @NotNull
+    public ObservableList<TabPane> getGroups() {
+        final DockableSkin skin = ensureSkin();
+        return skin.getTabLists().getGroups();
+    }
+
+    // shows a popup that selects a tab by typing the start of its title
+    public void showQuickSwitcher() {
+        final DockableSkin skin = ensureSkin();
+        skin.showQuickSwitcher();
+    }
+
+    // shows a popup previewing the most recently selected tabs of every group, with the previously selected tab
+    // preselected (or, backwards, the least recent one listed). Ctrl+Tab and Ctrl+Shift+Tab cycle, and releasing Ctrl
+    // (or Enter) selects. pressing Ctrl+Tab in the pane shows it as well
+    public void showTabSwitcher(boolean forward) {
+        final DockableSkin skin = ensureSkin();
+        skin.showTabSwitcher(forward);
+    }
+
+    // thread-safe: the tab is added on the FX thread with the other tabs requested during the same pulse, and content
+    // is built once the tab is first selected. the future completes (on the FX thread) once the tab was added
+    @NotNull
+    public CompletableFuture<Tab> addTabAsync(@NotNull String name, @NotNull Supplier<? extends Node> content) {
+        return mutations.addTab(name, content);
+    }
+
+    // thread-safe: the tab is removed on the FX thread, after every tab requested before it was added
+    @NotNull
+    public CompletableFuture<Void> removeTabAsync(@NotNull Tab tab) {
+        return mutations.removeTab(tab);
+    }
+
+    // runs transaction against this pane's tree, removing emptied groups and splits once at the end instead of after
+    // every change (so rearranging many tabs costs a single cleanup pass)
+    public void batch(@NotNull Consumer<Dockable> transaction) {
+        final DockableSkin skin = ensureSkin();
+        skin.batch(transaction);
+    }
+
+    // a snapshot of the current layout, which can be changed (on any thread) and applied back via applyModel
+    @NotNull
+    public DockModel getModel() {
+        final DockableSkin skin = ensureSkin();
+        return skin.snapshot();
+    }
+
+    // changes the layout to match model, only touching the groups and splits that differ. tabs that the pane does not
+    // show yet are created, and their content is built by contentFactory (from the tab id) once they are selected
+    public void applyModel(@NotNull DockModel model, @NotNull Function<String, ? extends Node> contentFactory) {
+        final DockableSkin skin = ensureSkin();
+        skin.apply(model, contentFactory);
+    }
+
+    // writes the current layout (splits, divider positions, groups, tab ids, titles, selection) in a compact binary form
+    public void saveLayout(@NotNull Path path) throws IOException {
+        DockLayoutCodec.write(getModel(), path);
+    }
+
+    // replaces the current layout with the one saved at path. the content of each tab is built by contentFactory (from
+    // the tab id) once the tab is first selected
+    public void restoreLayout(@NotNull Path path, @NotNull Function<String, ? extends Node> contentFactory)
+            throws IOException {
+        final DockModel model = DockLayoutCodec.read(path);
+        final DockableSkin skin = ensureSkin();
+        skin.restore(model, contentFactory);
+    }
+
 }
@@ -25,23 +25,50 @@
 
 package org.sireum.docktabfx;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableStringValue;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.css.Styleable;
+import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
 import javafx.geometry.Orientation;
+import javafx.geometry.Point2D;
+import javafx.geometry.Side;
 import javafx.scene.Node;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.ContextMenuEvent;
 import javafx.scene.input.MouseEvent;
-import javafx.scene.input.PickResult;
+import javafx.scene.layout.Region;
+import javafx.stage.Stage;
+import javafx.stage.Window;
 import javafx.util.Builder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -54,20 +81,164 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
     // todo idea: should this (and all components) be made available
     private final SimpleObjectProperty<Tab> targetTab = new SimpleObjectProperty<>();
 
+    // every node below rootSplitPane mapped to its most direct SplitPane container. kept current by the items
+    // listener installed in indexItems(...), so container lookups never have to walk the tree
+    private final Map<Node, SplitPane> containers = new IdentityHashMap<>();
+
+    // every TabPane currently attached below rootSplitPane (in order of attachment)
+    private final Set<TabPane> tabPanes = new LinkedHashSet<>();
+
+    // attached TabPanes that currently hold no tabs (candidates for clean())
+    private final Set<TabPane> emptyTabPanes = new LinkedHashSet<>();
+
+    // attached TabPanes by recency of use (pressed, or given a tab by a drop or split), newly attached ones last
+    private final RecencyList<TabPane> recentGroups = new RecencyList<>();
+
+    // TabPanes detached while the tree is rearranged, which stay listed (and keep their recency) unless they stay
+    // detached, see forgetDetachedGroups()
+    private final Set<TabPane> detachedGroups = new LinkedHashSet<>();
+    private boolean normalizing = false;
+
+    // the most recently used group of this pane or its floating windows (only the owner's is used, see
+    // activateGroup(tabPane))
+    private final ReadOnlyObjectWrapper<TabPane> activeGroup = new ReadOnlyObjectWrapper<>(this, "activeGroup");
+
     // todo make public property, add factory?
     @Nullable
     private SplitPane rootSplitPane = new SplitPane();
 
+    // live content of tabs ordered by selection recency (see DockablePane.hibernationPolicyProperty())
+    private final TabHibernation hibernation = new TabHibernation();
+
+    // which tabs are visible, reported as TabVisibilityEvents (see DockablePane.onTabVisibilityChangedProperty())
+    private final TabVisibility visibility = new TabVisibility(this::fireTabVisibilityEvent);
+
+    // every open tab by id and title
+    private final TabRegistry registry = new TabRegistry();
+
+    // every open tab and group as observable lists (the skins of floating windows update their owner's instead)
+    private final TabLists tabLists = new TabLists();
+
+    // created when first shown
+    @Nullable
+    private QuickSwitcher quickSwitcher;
+    @Nullable
+    private TabSwitcher tabSwitcher;
+
+    // while > 0, emptied TabPanes and SplitPanes are not removed (e.g. during a batch or while a model is applied)
+    private int cleanupSuspended = 0;
+
+    // SplitPanes that were emptied while cleanup was suspended (removed once it resumes, see resumeCleanup())
+    private final Set<SplitPane> emptySplitPanes = new LinkedHashSet<>();
+
+    // SplitPanes whose items or orientation changed since the tree was last normalized, see normalize(). changes the
+    // application makes are normalized by the next operation
+    private final Set<SplitPane> dirtySplitPanes = new LinkedHashSet<>();
+
+    // where a dragged tab can be dropped, rebuilt after layout changes (see dropZones.invalidate())
+    private final DropZoneIndex dropZones = new DropZoneIndex();
+
+    // the overlay that previews a drop, created on the first drag
+    @Nullable
+    private Region dropPreview;
+
+    // the picture of the dragged tab (with DockablePane.dragGhostProperty() set), created on the first such drag
+    @Nullable
+    private DragGhost dragGhost;
+
+    // holds divider drags back according to DockablePane.dividerResizeModeProperty()
+    private final DividerResize dividerResize = new DividerResize(this::getSkinnable);
+
+    // closed TabPanes and SplitPanes kept for reuse
+    private final ContainerPool pool = new ContainerPool();
+
+    // ids of the nodes that back the groups (TabPanes) and splits (SplitPanes) of the DockModel
+    private final Map<Node, String> modelIds = new IdentityHashMap<>();
+    private final Map<String, Node> modelNodes = new HashMap<>();
+    private int nextModelId = 1;
+
+    // windows showing undocked tabs, by id (only the skin that undocked them has any), see undockTab(tab)
+    private final Map<String, FloatingWindow> floatingWindows = new LinkedHashMap<>();
+
+    // while > 0, floating windows that lost their last tab stay open (e.g. while a model is applied)
+    private int windowClosingSuspended = 0;
+
+    // on the skin of a floating window's pane: the skin that undocked its tabs (which owns the layout model) and the
+    // id of the window. null otherwise
+    @Nullable
+    private DockableSkin dockOwner;
+    @Nullable
+    private String windowId;
+
+    // created on first request and shared by every tab, see getDefaultContextMenu()
+    @Nullable
+    private ContextMenu defaultContextMenu;
+
+    // the tab the default context menu was last requested for (and therefore acts on)
+    @Nullable
+    private Tab contextMenuTab;
+
+    // may briefly point to a detached TabPane (e.g. while splitTab re-parents it), see resolveRootTabPane()
     @Nullable
     private TabPane rootTabPane;
 
+    // the scene and window showing the tree: the focus owner activates groups, and tabs are only visible while the
+    // window is showing (and not iconified), see trackScene(scene)
+    @Nullable
+    private Scene trackedScene;
+    @Nullable
+    private Window trackedWindow;
+    private final ChangeListener<Node> focusListener = (observable, oldOwner, newOwner) -> activateGroupOf(newOwner);
+    private final InvalidationListener windowListener = observable -> trackWindow();
+    private final InvalidationListener showingListener = observable -> {
+        preloadIcons();
+        invalidateVisibility();
+    };
+    // whether the icons of the default context menu are decoded (or decoding), see preloadIcons()
+    private boolean iconsPreloaded = false;
+
+    public DockableSkin() {
+        indexItems(rootSplitPane);
+        dividerResize.install(rootSplitPane);
+        // any layout change below the root (resizing, moving dividers, adding groups) moves the drop zones
+        // (and may collapse groups to zero size)
+        // (a change listener, as an invalidation listener would only fire again once something reads the property)
+        rootSplitPane.needsLayoutProperty().addListener((observable, oldValue, newValue) -> {
+            dropZones.invalidate();
+            invalidateVisibility();
+        });
+        rootSplitPane.sceneProperty().addListener((observable, oldScene, newScene) -> trackScene(newScene));
+    }
+
     private void initRootTabPaneIfEmpty() {
-        if (rootSplitPane != null && rootTabPane == null) {
+        if (rootSplitPane != null && resolveRootTabPane() == null) {
             rootTabPane = createTabPane();
             rootSplitPane.getItems().add(rootTabPane);
         }
     }
 
+    // if the root TabPane was detached, fall back to the most recently used attached TabPane (or null if none exists)
+    @Nullable
+    private TabPane resolveRootTabPane() {
+        if (rootTabPane != null && !tabPanes.contains(rootTabPane)) {
+            rootTabPane = mostRecentGroup();
+        }
+        return rootTabPane;
+    }
+
+    // where added tabs go, see DockablePane.tabTargetPolicyProperty()
+    @Nullable
+    private TabPane resolveTargetTabPane() {
+        final DockablePane skinnable = getSkinnable();
+        if (skinnable != null && skinnable.getTabTargetPolicy() == TabTargetPolicy.ACTIVE_GROUP) {
+            final TabPane active = getActiveGroup();
+            if (active != null && isListed(active)) {
+                return active;
+            }
+        }
+        return resolveRootTabPane();
+    }
+
     @Nullable
     @Override
     public DockablePane getSkinnable() {
@@ -86,8 +257,45 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
     @Override
     public void dispose() {
         // after calling dispose(), getNode() and getSkinnable() should return null (as per javafx rules)
+        for (FloatingWindow window : floatingWindows.values()) {
+            window.close();
+        }
+        floatingWindows.clear();
+        trackScene(null);
+        for (TabPane tabPane : tabPanes) {
+            forgetGroup(tabPane);
+        }
+        for (TabPane tabPane : detachedGroups) {
+            forgetGroup(tabPane);
+        }
+        unregisterTabs(tabPanes);
         rootTabPane = null;
         rootSplitPane = null;
+        defaultContextMenu = null;
+        contextMenuTab = null;
+        containers.clear();
+        tabPanes.clear();
+        emptyTabPanes.clear();
+        detachedGroups.clear();
+        emptySplitPanes.clear();
+        dirtySplitPanes.clear();
+        modelIds.clear();
+        modelNodes.clear();
+        hibernation.forgetAll();
+        quickSwitcher = null;
+        tabSwitcher = null;
+        pool.clear();
+        dropZones.clear();
+        visibility.dispose();
+        dividerResize.dispose();
+        if (dropPreview != null && dropPreview.getParent() instanceof DockablePane) {
+            ((DockablePane) dropPreview.getParent()).getDockChildren().remove(dropPreview);
+        }
+        dropPreview = null;
+        if (dragGhost != null && dragGhost.getView().getParent() instanceof DockablePane) {
+            ((DockablePane) dragGhost.getView().getParent()).getDockChildren().remove(dragGhost.getView());
+        }
+        dragGhost = null;
     }
 
     @NotNull
@@ -95,24 +303,117 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
     public Tab addTab(@NotNull String name, @NotNull Node content) {
         initRootTabPaneIfEmpty();
 
+        final Tab tab = createTab(name, content);
+        final TabPane target = resolveTargetTabPane();
+        if (target != null) { // check if disposed
+            target.getTabs().add(tab);
+        }
+        return tab;
+    }
+
+    @NotNull
+    @Override
+    public Tab addTab(@NotNull String name, @NotNull Supplier<? extends Node> content) {
+        initRootTabPaneIfEmpty();
+
+        final Tab tab = createTab(name, null);
+        LazyContent.install(tab, content);
+        final TabPane target = resolveTargetTabPane();
+        if (target != null) { // check if disposed
+            target.getTabs().add(tab); // selecting the tab (e.g. because target was empty) builds its content
+        }
+        return tab;
+    }
+
+    @NotNull
+    @Override
+    public List<Tab> addTabs(@NotNull Map<String, ? extends Node> contents) {
+        initRootTabPaneIfEmpty();
+
+        final List<Tab> tabs = new ArrayList<>(contents.size());
+        for (Map.Entry<String, ? extends Node> entry : contents.entrySet()) {
+            tabs.add(createTab(entry.getKey(), entry.getValue()));
+        }
+
+        final TabPane target = resolveTargetTabPane();
+        if (target != null) { // check if disposed
+            // a single addAll means a single change for the tab listeners (and a single layout) per batch
+            target.getTabs().addAll(tabs);
+        }
+        return tabs;
+    }
+
+    // adds one lazily built tab per name (names.get(i) built by contents.get(i)) as a single change, like addTabs
+    @NotNull
+    List<Tab> addTabs(@NotNull List<String> names, @NotNull List<? extends Supplier<? extends Node>> contents) {
+        initRootTabPaneIfEmpty();
+
+        final List<Tab> tabs = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            final Tab tab = createTab(names.get(i), null);
+            LazyContent.install(tab, contents.get(i));
+            tabs.add(tab);
+        }
+
+        final TabPane target = resolveTargetTabPane();
+        if (target != null) { // check if disposed
+            target.getTabs().addAll(tabs);
+        }
+        return tabs;
+    }
+
+    @NotNull
+    private Tab createTab(@NotNull String name, @Nullable Node content) {
         final Label label = new Label(name); // todo tabLabelFactory here? or just let them edit
         final Tab tab = new Tab(); // todo use factory here? or just let them edit afterwards
+        setTabId(tab, generateTabId());
 
-        label.addEventFilter(MouseEvent.MOUSE_PRESSED, event -> targetTab.set(tab));
+        final EventHandler<MouseEvent> pressFilter = event -> beginDrag(tab);
+        label.addEventFilter(MouseEvent.MOUSE_PRESSED, pressFilter);
+        tab.getProperties().put(PRESS_FILTER, pressFilter); // so release(tab) can remove it
 
         tab.setGraphic(label);
         tab.setContent(content);
 
+        // the context menu is only resolved once it is requested, see requestContextMenu(tab)
+        return tab;
+    }
+
+    // marks tab as the one a press on its header may start dragging (to another group or an edge). the tab may move to
+    // another pane's TabPanes (see undockTab), so its skin is looked up on each press
+    static void beginDrag(@NotNull Tab tab) {
+        final DockableSkin owner = ownerOf(tab.getTabPane());
+        if (owner != null) {
+            owner.targetTab.set(tab);
+        }
+    }
+
+    // resolves the context menu of tab on demand (either from the contextMenuFactory or the shared default menu)
+    // and installs it on the tab so the TabPane's skin can show it
+    @NotNull
+    ContextMenu requestContextMenu(@NotNull Tab tab) {
         final ContextMenu contextMenu = mapOrFallback(getSkinnable(),
                 DockablePane::getContextMenuFactory,
                 it -> it.call(tab),
-                () -> createDefaultContextMenu(tab));
+                this::getDefaultContextMenu);
 
+        if (contextMenu == defaultContextMenu) {
+            contextMenuTab = tab; // bind the shared menu to the tab it is shown for
+        }
         tab.setContextMenu(contextMenu);
-        if (rootTabPane != null) { // check if disposed
-            rootTabPane.getTabs().add(tab); // tabs are always added to the first tabPane
+        return contextMenu;
+    }
+
+    // finds the tab whose header contains node (TabPaneSkin stores each tab in its header's properties)
+    @Nullable
+    private static Tab findHeaderTab(@Nullable Node node, @NotNull TabPane tabPane) {
+        while (node != null && node != tabPane) {
+            if (node.hasProperties() && node.getProperties().get(Tab.class) instanceof Tab) {
+                return (Tab) node.getProperties().get(Tab.class);
+            }
+            node = node.getParent();
         }
-        return tab;
+        return null;
     }
 
     // whenever an existing tab spawns with a new pane, the reference to that pane exists until the tab is closed
@@ -120,6 +421,7 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
     // so we may need to recreate th tab when we move it?
     // but javafx might drop this for us later anyways:
     // https://stackoverflow.com/questions/31928294/closing-javafx-tabs-doesnt-release-memory-from-arraylists-and-tableviews-in-tha
+    // (with DockablePane.releaseClosedTabsProperty() set, closed tabs are detached from everything, see release(tab))
 
     @Override
     public void removeTab(@NotNull Tab tab) {
@@ -127,6 +429,7 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
         if (tabPane != null) {
             tabPane.getTabs().remove(tab);
             closeTabPaneIfEmpty(tabPane);
+            releaseClosedTabs(Collections.singletonList(tab));
         }
     }
 
@@ -134,16 +437,11 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
     public void removeAllOtherTabsInGroup(@NotNull Tab tab) {
         final TabPane tabPane = tab.getTabPane();
         if (tabPane != null) {
-            final ObservableList<Tab> tabs = tabPane.getTabs();
-            // using while loop because collection removal is indirectly called by removeTab
-            while (tabs.size() > 1) {
-                final Tab removalCandidate = tabs.get(0);
-                if (removalCandidate != tab) {
-                    tabs.remove(0);
-                } else {
-                    tabs.remove(1); // this works assuming there is never a change allowing tab duplicates
-                }
-            }
+            final List<Tab> closed = new ArrayList<>(tabPane.getTabs());
+            closed.remove(tab);
+            // a single change for the tab listeners, however many tabs are closed
+            tabPane.getTabs().retainAll(Collections.singletonList(tab));
+            releaseClosedTabs(closed);
         }
     }
 
@@ -151,15 +449,28 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
     public void removeGroup(@NotNull Tab tab) {
         final TabPane tabPane = tab.getTabPane();
         if (tabPane != null) {
+            final List<Tab> closed = new ArrayList<>(tabPane.getTabs());
             tabPane.getTabs().clear();
             closeTabPaneIfEmpty(tabPane);
+            releaseClosedTabs(closed);
         }
     }
 
     @Override
     public void removeAllOtherGroups(@NotNull Tab tab) {
         final TabPane tabPane = tab.getTabPane();
+        final DockableSkin owner = ownerOf(tabPane);
+        if (owner != null && owner != this) {
+            // a tab of one of this skin's floating windows keeps that window and closes everything else
+            if (owner.dockOwner == this) {
+                owner.removeAllOtherGroups(tab);
+                closeFloatingWindows(owner.windowId);
+                removeTree();
+            }
+            return;
+        }
         if (tabPane != null) {
+            closeFloatingWindows(null);
             // remove this tab pane from its parent
             final SplitPane parent = findMostDirectContainer(tabPane);
             if (parent != null) {
@@ -167,248 +478,1593 @@ public class DockableSkin implements Skin<DockablePane>, Dockable {
             }
             // remove all other nodes from the hierarchy
             if (rootSplitPane != null) { // if not disposed
+                final List<TabPane> others = new ArrayList<>(tabPanes);
+                others.remove(tabPane);
+                for (TabPane other : others) {
+                    for (Tab closed : other.getTabs()) {
+                        hibernation.forget(closed);
+                        getRegistry().unregister(closed);
+                    }
+                }
                 rootSplitPane.getItems().clear();
                 rootSplitPane.getItems().add(tabPane); //https://stackoverflow.com/questions/31928294/closing-javafx-tabs-doesnt-release-memory-from-arraylists-and-tableviews-in-thab
+                resolveRootTabPane();
+                releaseClosedTabPanes(others);
             }
         }
     }
 
     @Override
     public void removeAll() {
+        closeFloatingWindows(null);
+        removeTree();
+    }
+
+    // closes every tab of this skin's own tree
+    private void removeTree() {
         if (rootSplitPane != null) { // if not disposed
+            final List<TabPane> closed = new ArrayList<>(tabPanes);
+            hibernation.forgetAll();
+            unregisterTabs(closed);
             rootSplitPane.getItems().clear();
+            rootTabPane = null;
+            // only the root keeps its id (the ids of detached groups and splits would keep them reachable)
+            modelIds.clear();
+            modelNodes.clear();
+            releaseClosedTabPanes(closed);
+            closeFloatingWindowIfEmpty();
         }
     }
 
-    // removes empty TabPanes contained in SplitPanes... but what if users hold an outside ref?
-    private void clean(@NotNull SplitPane container) {
-        // container's children are SplitPane or TabPane
-        // children that are SplitPane also guarantee this contract
-        for (Node node : container.getItems()) {
-            if (node instanceof TabPane) {
-                closeTabPaneIfEmpty((TabPane) node);
-            } else if (node instanceof SplitPane) {
-                clean((SplitPane) node);
+    // empties the given detached TabPanes and releases their tabs (only if releasing closed tabs is enabled)
+    private void releaseClosedTabPanes(@NotNull List<TabPane> closedTabPanes) {
+        if (isReleaseClosedTabs()) {
+            for (TabPane tabPane : closedTabPanes) {
+                final List<Tab> closed = new ArrayList<>(tabPane.getTabs());
+                tabPane.getTabs().clear();
+                releaseClosedTabs(closed);
             }
         }
     }
 
-    @Nullable
-    private static TabPane findUppermostTabPane(SplitPane container) {
-        // first check all items
-        for (Node node : container.getItems()) {
-            if (node instanceof TabPane) {
-                return (TabPane) node;
+    // releases the given closed tabs (only if releasing closed tabs is enabled)
+    private void releaseClosedTabs(@NotNull Collection<Tab> closedTabs) {
+        if (isReleaseClosedTabs()) {
+            for (Tab tab : closedTabs) {
+                if (tab.getTabPane() == null) { // not re-added in the meantime
+                    release(tab);
+                }
             }
         }
+    }
 
-        // then go deeper down tree if needed
-        for (Node node : container.getItems()) {
-            if (node instanceof SplitPane) {
-                // check recursively if tab holds SplitPane
-                final SplitPane splitPane = (SplitPane) node;
-                final TabPane tabPane = findUppermostTabPane(splitPane);
+    // removes everything the skin attached to tab (and its content), so that nothing held by the pane (nor by tab's
+    // own listeners) keeps tab or its content reachable once the caller drops it
+    private void release(@NotNull Tab tab) {
+        LazyContent.cancel(tab);
+        hibernation.forget(tab);
+        getRegistry().unregister(tab);
 
-                if (tabPane != null) {
-                    return tabPane;
-                }
-            }
+        final Object pressFilter = tab.getProperties().remove(PRESS_FILTER);
+        if (pressFilter != null && tab.getGraphic() != null) {
+            @SuppressWarnings("unchecked")
+            final EventHandler<MouseEvent> handler = (EventHandler<MouseEvent>) pressFilter;
+            tab.getGraphic().removeEventFilter(MouseEvent.MOUSE_PRESSED, handler);
         }
+        tab.setContent(null);
+        tab.setContextMenu(null);
 
-        return null;
+        if (targetTab.get() == tab) {
+            targetTab.set(null);
+        }
+        if (contextMenuTab == tab) {
+            contextMenuTab = null;
+        }
     }
 
-    @Nullable
-    private SplitPane findMostDirectContainer(Node child) {
-        if (rootSplitPane != null) { // check if disposed
-            return findMostDirectContainer(rootSplitPane, child);
-        }
-        return null;
+    private boolean isReleaseClosedTabs() {
+        final DockablePane skinnable = getSkinnable();
+        return skinnable != null && skinnable.isReleaseClosedTabs();
     }
 
-    // inner recursive impl
-    @Nullable
-    private static SplitPane findMostDirectContainer(SplitPane splitPane, Node child) {
-        for (Node node : splitPane.getItems()) {
-            if (node == child) { // implicitly means node must also be instance of TabPane
-                return splitPane;
-            }
+    // runs transaction with cleanup suspended, so emptied TabPanes and SplitPanes are removed (and the root TabPane
+    // resolved) once when the outermost batch ends, instead of after every change
+    public void batch(@NotNull Consumer<Dockable> transaction) {
+        suspendCleanup();
+        try {
+            transaction.accept(this);
+        } finally {
+            resumeCleanup();
         }
+    }
 
-        for (Node node : splitPane.getItems()) {
-            if (node instanceof SplitPane) {
-                final SplitPane result = findMostDirectContainer((SplitPane) node, child);
-                if (result != null) {
-                    return result;
-                }
+    private void suspendCleanup() {
+        cleanupSuspended++;
+    }
+
+    private void resumeCleanup() {
+        if (--cleanupSuspended == 0) {
+            clean();
+            for (SplitPane splitPane : emptySplitPanes.toArray(new SplitPane[0])) {
+                closeSplitPaneIfEmpty(splitPane);
             }
+            emptySplitPanes.clear();
+            normalize();
+            resolveRootTabPane();
+            closeFloatingWindowIfEmpty();
         }
-
-        return null;
     }
 
-    @Override
-    public void splitTab(@NotNull Tab tab, @NotNull Orientation orientation) {
-        final TabPane tabPane = tab.getTabPane();
-        // if non-null and there are at least 2 tabs (otherwise there's nothing to split)
-        if (tabPane != null && tabPane.getTabs().size() > 1) {
-            final SplitPane parent = findMostDirectContainer(tabPane);
-            if (parent != null) {
-                clean(parent);
-                // if 1 item, just add tabPane directly
-                final TabPane newTabPane;
-                if (parent.getItems().size() < 2) {
-                    parent.setOrientation(oppositeOrientation(orientation));
-                    newTabPane = createTabPane();
-                    tabPane.getTabs().remove(tab);
-                    newTabPane.getTabs().add(tab);
-                    parent.getItems().add(newTabPane);
-                } else { // if more than one, put tabPane into a splitPane
-                    tabPane.getTabs().remove(tab);
-                    newTabPane = createTabPane();
-                    newTabPane.getTabs().add(tab);
-                    final int placement = parent.getItems().indexOf(tabPane);
-                    parent.getItems().remove(placement);
-                    final SplitPane newSplitPane = createSplitPane(tabPane, newTabPane);
-                    newSplitPane.setOrientation(oppositeOrientation(orientation));
-                    parent.getItems().add(placement, newSplitPane);
+    // flattens the SplitPanes that changed: a SplitPane with a single item is replaced by that item, and the items of
+    // a SplitPane with the same orientation as its container are moved into the container (keeping the ratio of the
+    // space every item gets). the tree then alternates orientation level by level, and each level splits something
+    private void normalize() {
+        normalizing = true;
+        try {
+            while (!dirtySplitPanes.isEmpty()) {
+                final Iterator<SplitPane> iterator = dirtySplitPanes.iterator();
+                final SplitPane splitPane = iterator.next();
+                iterator.remove();
+                // changes to SplitPanes that were detached since don't matter anymore
+                if (splitPane == rootSplitPane || containers.containsKey(splitPane)) {
+                    normalize(splitPane);
                 }
             }
+        } finally {
+            normalizing = false;
         }
+        forgetDetachedGroups();
     }
 
-    private static Orientation oppositeOrientation(Orientation orientation) {
-        if (orientation == Orientation.HORIZONTAL) {
-            return Orientation.VERTICAL;
-        } else if (orientation == Orientation.VERTICAL) {
-            return Orientation.HORIZONTAL;
+    private void normalize(@NotNull SplitPane splitPane) {
+        final ObservableList<Node> items = splitPane.getItems();
+        final SplitPane container = findMostDirectContainer(splitPane);
+        if (container != null && container.getOrientation() == splitPane.getOrientation() && items.size() > 1) {
+            merge(splitPane, container); // e.g. splitPane was re-oriented, marks container as dirty
+        } else if (items.size() == 1 && container != null) {
+            final Node item = items.get(0);
+            final double[] positions = container.getDividerPositions();
+            container.getItems().set(container.getItems().indexOf(splitPane), item); // marks container as dirty
+            container.setDividerPositions(positions);
+            discard(splitPane);
+        } else if (items.size() == 1 && items.get(0) instanceof SplitPane) {
+            // the root can't be replaced, so it takes over the items (and orientation) of its only SplitPane instead
+            final SplitPane child = (SplitPane) items.get(0);
+            final double[] positions = child.getDividerPositions();
+            splitPane.setOrientation(child.getOrientation());
+            items.setAll(new ArrayList<>(child.getItems()));
+            splitPane.setDividerPositions(positions);
+            discard(child);
         } else {
-            // impossible unless a new value is added down the road or something
-            throw new IllegalStateException("Orientation must equal HORIZONTAL or VERTICAL.");
+            for (Node item : items) {
+                if (item instanceof SplitPane && ((SplitPane) item).getOrientation() == splitPane.getOrientation()) {
+                    merge((SplitPane) item, splitPane);
+                    return; // merging changed the items, so splitPane was marked as dirty again
+                }
+            }
         }
     }
 
-    private SplitPane createSplitPane(Node... items) {
-        // todo allow for factory like with createTabPane
-        final SplitPane splitPane = new SplitPane(items);
-        splitPane.getItems().addListener((ListChangeListener<? super Node>) c -> {
-            if (splitPane.getItems().isEmpty()) {
-                final SplitPane parent = findMostDirectContainer(splitPane);
-                if (parent != null) {
-                    parent.getItems().remove(splitPane);
+    // replaces child (an item of parent) with the items of child
+    private void merge(@NotNull SplitPane child, @NotNull SplitPane parent) {
+        final int index = parent.getItems().indexOf(child);
+        final double[] parentSizes = sizes(parent.getDividerPositions(), parent.getItems().size());
+        final double[] childSizes = sizes(child.getDividerPositions(), child.getItems().size());
+
+        final List<Node> items = new ArrayList<>(parent.getItems().size() + child.getItems().size() - 1);
+        final double[] sizes = new double[parentSizes.length + childSizes.length - 1];
+        for (int i = 0; i < parentSizes.length; i++) {
+            if (i < index) {
+                items.add(parent.getItems().get(i));
+                sizes[i] = parentSizes[i];
+            } else if (i == index) {
+                for (int j = 0; j < childSizes.length; j++) {
+                    items.add(child.getItems().get(j));
+                    sizes[index + j] = parentSizes[index] * childSizes[j];
                 }
+            } else {
+                items.add(parent.getItems().get(i));
+                sizes[i + childSizes.length - 1] = parentSizes[i];
             }
-        });
+        }
 
-        return splitPane;
+        parent.getItems().setAll(items);
+        parent.setDividerPositions(positions(sizes));
+        discard(child);
     }
 
-    private TabPane createTabPane() {
-        final TabPane tabPane = mapOrFallback(getSkinnable(), DockablePane::getTabPaneFactory,
-                Builder::build, this::createDefaultTabPane);
+    // the share of the space each of count items gets, given the divider positions between them
+    @NotNull
+    private static double[] sizes(@NotNull double[] positions, int count) {
+        final double[] sizes = new double[count];
+        double previous = 0;
+        for (int i = 0; i < count; i++) {
+            final double position = i < positions.length ? Math.max(previous, Math.min(1, positions[i])) : 1;
+            sizes[i] = position - previous;
+            previous = position;
+        }
+        return sizes;
+    }
 
-        tabPane.addEventFilter(MouseEvent.MOUSE_RELEASED, event -> {
-            if (targetTab.get() != null) {
-                final PickResult pickResult = event.getPickResult();
+    // the divider positions that give each item its share of the space
+    @NotNull
+    private static double[] positions(@NotNull double[] sizes) {
+        final double[] positions = new double[Math.max(0, sizes.length - 1)];
+        double position = 0;
+        for (int i = 0; i < positions.length; i++) {
+            position += sizes[i];
+            positions[i] = position;
+        }
+        return positions;
+    }
 
-                Node node = pickResult.getIntersectedNode();
-                while (node != null && !(node instanceof TabPane)) {
-                    node = node.getParent();
-                }
+    // empties a SplitPane that was flattened away (after its items were moved elsewhere) and pools it
+    private void discard(@NotNull SplitPane splitPane) {
+        splitPane.getItems().clear();
+        dirtySplitPanes.remove(splitPane);
+        forgetModelId(splitPane);
+        if (!isReleaseClosedTabs()) {
+            pool.release(splitPane);
+        }
+    }
 
-                final TabPane targetTabPane = (TabPane) node;
-                final Tab tab = targetTab.get();
+    // removes empty TabPanes contained in SplitPanes... but what if users hold an outside ref?
+    private void clean() {
+        // only the TabPanes known to be empty are visited, so this does not depend on the size of the tree
+        for (TabPane tabPane : emptyTabPanes.toArray(new TabPane[0])) {
+            closeTabPaneIfEmpty(tabPane);
+        }
+    }
 
-                if (targetTabPane != null && tab != null && tabPane != targetTabPane) {
-                    // consuming the event prevents index error handling upstream
-                    event.consume();
-                    tabPane.getTabs().remove(tab);
-                    targetTabPane.getTabs().add(tab);
-                    System.out.println("HERE!");
-                    closeTabPaneIfEmpty(tabPane);
+    @Nullable
+    SplitPane findMostDirectContainer(@NotNull Node child) {
+        return containers.get(child);
+    }
+
+    // read-only view of every attached TabPane, mainly for verifying the index
+    @NotNull
+    Set<TabPane> getAttachedTabPanes() {
+        return Collections.unmodifiableSet(tabPanes);
+    }
+
+    // keeps the containers index current for the items of splitPane (and everything they contain)
+    private void indexItems(@NotNull SplitPane splitPane) {
+        for (Node node : splitPane.getItems()) {
+            attach(node, splitPane);
+        }
+        splitPane.getItems().addListener((ListChangeListener<? super Node>) c -> {
+            dirtySplitPanes.add(splitPane);
+            while (c.next()) {
+                for (Node node : c.getRemoved()) {
+                    detach(node, splitPane);
+                }
+                for (Node node : c.getAddedSubList()) {
+                    attach(node, splitPane);
                 }
-                targetTab.set(null);
             }
         });
+        // e.g. re-oriented like its container, so that it has to be merged into it
+        splitPane.orientationProperty().addListener((observable, oldOrientation, newOrientation) ->
+                dirtySplitPanes.add(splitPane));
+    }
 
-        // automatically close tabPanes if 0 items
-        tabPane.getTabs().addListener((ListChangeListener<? super Tab>) c -> closeTabPaneIfEmpty(tabPane));
-        return tabPane;
+    private void attach(@NotNull Node node, @NotNull SplitPane container) {
+        // SplitPanes that were detached from the tree keep their listener, so ignore changes made to them
+        if (container != rootSplitPane && !containers.containsKey(container)) {
+            return;
+        }
+        dropZones.invalidate();
+        containers.put(node, container);
+        if (node instanceof TabPane) {
+            final TabPane tabPane = (TabPane) node;
+            tabPanes.add(tabPane);
+            getTabLists().addGroup(tabPane);
+            if (!detachedGroups.remove(tabPane)) { // only moved, it keeps its recency
+                final Tab selected = tabPane.getSelectionModel().getSelectedItem();
+                if (selected != null) { // e.g. the tab a split moves into a new group, selected before it was attached
+                    getTabLists().touch(selected);
+                }
+                recentGroups.addLeastRecent(tabPane);
+                if (getActiveGroup() == null) {
+                    activateGroup(tabPane);
+                }
+            }
+            if (tabPane.getTabs().isEmpty()) {
+                emptyTabPanes.add(tabPane);
+            }
+            invalidateVisibility();
+        } else if (node instanceof SplitPane) {
+            // it may have changed while detached
+            dirtySplitPanes.add((SplitPane) node);
+            // a SplitPane is only attached with its subtree, which must be indexed as well
+            for (Node child : ((SplitPane) node).getItems()) {
+                attach(child, (SplitPane) node);
+            }
+        }
     }
 
-    @NotNull
-    private static <T,R> R mapOrFallback(@Nullable T initial, Function<T, @Nullable R> map, @NotNull Supplier<R> fallback) {
-        if (initial == null) {
-            return fallback.get();
-        } else {
-            return Objects.requireNonNullElseGet(map.apply(initial), fallback);
+    private void detach(@NotNull Node node, @NotNull SplitPane container) {
+        // the node may have already been attached elsewhere, in which case its entry is no longer ours to remove
+        if (containers.get(node) != container) {
+            return;
+        }
+        containers.remove(node);
+        if (node instanceof TabPane) {
+            tabPanes.remove(node);
+            emptyTabPanes.remove(node);
+            if (cleanupSuspended > 0 || normalizing) { // it may be attached again elsewhere
+                detachedGroups.add((TabPane) node);
+            } else {
+                forgetGroup((TabPane) node);
+            }
+            invalidateVisibility();
+        } else if (node instanceof SplitPane) {
+            dirtySplitPanes.remove(node);
+            for (Node child : ((SplitPane) node).getItems()) {
+                detach(child, (SplitPane) node);
+            }
         }
     }
 
-    @NotNull
-    private static <T,U,R> R mapOrFallback(@Nullable T initial, Function<T, @Nullable U> map1, Function<U, @Nullable R> map2, @NotNull Supplier<R> fallback) {
-        if (initial == null) {
-            return fallback.get();
-        } else {
-            return mapOrFallback(map1.apply(initial), map2, fallback);
+    // floating windows
+
+    // a floating window starts this far below and right of the group it was undocked from
+    private static final double FLOATING_OFFSET = 32;
+    private static final double FLOATING_WIDTH = 640;
+    private static final double FLOATING_HEIGHT = 480;
+
+    @Override
+    public void undockTab(@NotNull Tab tab) {
+        if (dockOwner != null) { // windows are owned by the skin that undocked their tabs
+            dockOwner.undockTab(tab);
+            return;
+        }
+        final TabPane tabPane = tab.getTabPane();
+        if (tabPane != null && getSkinnable() != null) {
+            final FloatingWindow window = createFloatingWindow(tabPane);
+            tabPane.getTabs().remove(tab);
+            window.getSkin().adopt(Collections.singletonList(tab), tab);
+            showFloatingWindows();
         }
     }
 
-    private void closeTabPaneIfEmpty(TabPane tabPane) {
-        if (tabPane.getTabs().isEmpty()) {
-            final SplitPane parent = findMostDirectContainer(tabPane);
-            if (parent != null) {
-                parent.getItems().remove(tabPane);
+    @Override
+    public void undockGroup(@NotNull Tab tab) {
+        if (dockOwner != null) {
+            dockOwner.undockGroup(tab);
+            return;
+        }
+        final TabPane tabPane = tab.getTabPane();
+        final DockableSkin owner = ownerOf(tabPane);
+        if (tabPane != null && owner != null && getSkinnable() != null) {
+            final String groupId = owner.modelIds.get(tabPane);
+            final List<Tab> tabs = new ArrayList<>(tabPane.getTabs());
+            final Tab selected = tabPane.getSelectionModel().getSelectedItem();
+            final FloatingWindow window = createFloatingWindow(tabPane);
+            tabPane.getTabs().clear();
+            owner.forgetModelId(tabPane); // (even if a batch keeps the emptied TabPane for now)
+            final TabPane adopted = window.getSkin().adopt(tabs, selected);
+            if (groupId != null && adopted != null) {
+                window.getSkin().registerModelId(adopted, groupId); // the group keeps its id in the model
+            }
+            showFloatingWindows();
+        }
+    }
 
-                // if the closing tabPane was the root then set rootTabPane to another tabPane
-                // (or null if no other tabPane exists)
-                if (rootSplitPane != null && tabPane == rootTabPane) {
-                    rootTabPane = findUppermostTabPane(rootSplitPane);
-                }
+    @Override
+    public void redockTab(@NotNull Tab tab) {
+        if (dockOwner != null) {
+            dockOwner.redockTab(tab);
+            return;
+        }
+        final TabPane tabPane = tab.getTabPane();
+        final DockableSkin owner = ownerOf(tabPane);
+        if (tabPane != null && owner != null && owner.dockOwner == this) { // only tabs of this skin's windows
+            tabPane.getTabs().remove(tab);
+            adopt(Collections.singletonList(tab), tab);
+        }
+    }
+
+    // redocks every tab of a floating window, which closes it
+    void redockWindow(@NotNull String id) {
+        final FloatingWindow window = floatingWindows.get(id);
+        if (window != null) {
+            final List<Tab> tabs = new ArrayList<>();
+            for (TabPane tabPane : window.getSkin().tabPanes) {
+                tabs.addAll(tabPane.getTabs());
+            }
+            for (Tab tab : tabs) {
+                redockTab(tab);
             }
+            closeFloatingWindow(id); // in case it held no tabs
         }
     }
 
-    // thread-safe lazy loader of "split vertical" menuitem image
-    private static final class VerticalSplitImageLazyLoader {
-        private static final Image INSTANCE =
-                new Image(DockableSkin.class.getResource("vertical-split.png").toExternalForm());
+    // on the skin of a floating window's pane, see FloatingWindow
+    void makeFloating(@NotNull DockableSkin owner, @NotNull String id) {
+        dockOwner = owner;
+        windowId = id;
     }
 
-    // thread-safe lazy loader of "split horizontal" menuitem image
-    private static final class HorizontalSplitImageLazyLoader {
-        private static final Image INSTANCE =
-                new Image(DockableSkin.class.getResource("horizontal-split.png").toExternalForm());
+    @NotNull
+    Collection<FloatingWindow> getFloatingWindows() {
+        return Collections.unmodifiableCollection(floatingWindows.values());
     }
 
-    private TabPane createDefaultTabPane() {
-        final TabPane tabPane = new TabPane();
-        tabPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
-        tabPane.setTabDragPolicy(TabPane.TabDragPolicy.REORDER);
-        return tabPane;
+    // the skin whose tree tabPane belongs to (null if tabPane was not created by a DockableSkin)
+    @Nullable
+    static DockableSkin ownerOf(@Nullable TabPane tabPane) {
+        final Object owner = tabPane == null ? null : tabPane.getProperties().get(DockableSkin.class);
+        return owner instanceof DockableSkin ? (DockableSkin) owner : null;
     }
 
-    private ContextMenu createDefaultContextMenu(Tab tab) {
-        final MenuItem closeMenuItem = new MenuItem("Close");
-        closeMenuItem.setOnAction(event -> removeTab(tab));
+    // adds tabs that come from another tree to the end of the first group (these keep their content), selecting
+    // selected. redocked tabs go to the same group as with DockModel.redockTab, see getFirstGroup()
+    @Nullable
+    private TabPane adopt(@NotNull List<Tab> tabs, @Nullable Tab selected) {
+        initRootTabPaneIfEmpty();
+        final TabPane target = getFirstGroup();
+        if (target != null) { // check if disposed
+            target.getTabs().addAll(tabs);
+            if (selected != null) {
+                target.getSelectionModel().select(selected);
+            }
+        }
+        return target;
+    }
 
-        final MenuItem closeOthersMenuItem = new MenuItem("Close Others");
-        closeOthersMenuItem.setOnAction(event -> removeAllOtherTabsInGroup(tab));
+    // the left-/top-most group of this tree (like DockModel.getFirstGroup()), or null if there is none
+    @Nullable
+    private TabPane getFirstGroup() {
+        Node node = rootSplitPane;
+        while (node instanceof SplitPane && !((SplitPane) node).getItems().isEmpty()) {
+            node = ((SplitPane) node).getItems().get(0);
+        }
+        return node instanceof TabPane ? (TabPane) node : null;
+    }
 
-        final MenuItem closeGroupMenuItem = new MenuItem("Close Group");
-        closeGroupMenuItem.setOnAction(event -> removeGroup(tab));
+    @NotNull
+    private FloatingWindow createFloatingWindow(@NotNull TabPane from) {
+        String id;
+        do {
+            id = generateModelId("window-");
+        } while (floatingWindows.containsKey(id));
+        final Bounds bounds = from.localToScreen(from.getLayoutBounds());
+        if (bounds == null || bounds.isEmpty()) { // not showing
+            return createFloatingWindow(id, FLOATING_OFFSET, FLOATING_OFFSET, FLOATING_WIDTH, FLOATING_HEIGHT);
+        }
+        return createFloatingWindow(id, bounds.getMinX() + FLOATING_OFFSET, bounds.getMinY() + FLOATING_OFFSET,
+                bounds.getWidth(), bounds.getHeight());
+    }
 
-        final ImageView v = new ImageView(VerticalSplitImageLazyLoader.INSTANCE);
-        final ImageView h = new ImageView(HorizontalSplitImageLazyLoader.INSTANCE);
+    @NotNull
+    private FloatingWindow createFloatingWindow(@NotNull String id, double x, double y, double width, double height) {
+        final FloatingWindow window = new FloatingWindow(id, this, Objects.requireNonNull(getSkinnable()),
+                x, y, width, height);
+        floatingWindows.put(id, window);
+        return window;
+    }
 
-        final MenuItem splitVerticallyMenuItem = new MenuItem("Split Vertically", v);
-        splitVerticallyMenuItem.setOnAction(event -> splitTab(tab, Orientation.VERTICAL));
+    // windows are shown along with the pane (they stay hidden while it is not showing)
+    private void showFloatingWindows() {
+        final DockablePane skinnable = getSkinnable();
+        final Scene scene = skinnable == null ? null : skinnable.getScene();
+        for (FloatingWindow window : floatingWindows.values()) {
+            window.show(scene == null ? null : scene.getWindow());
+        }
+    }
 
-        final MenuItem splitHorizontallyMenuItem = new MenuItem("Split Horizontally", h);
-        splitHorizontallyMenuItem.setOnAction(event -> splitTab(tab, Orientation.HORIZONTAL));
+    // on the skin of a floating window: closes the window once its last tab is gone
+    private void closeFloatingWindowIfEmpty() {
+        if (dockOwner != null && windowId != null && cleanupSuspended == 0 && rootSplitPane != null
+                && !containsTabs(rootSplitPane) && dockOwner.windowClosingSuspended == 0) {
+            dockOwner.closeFloatingWindow(windowId);
+        }
+    }
 
-        return new ContextMenu(closeMenuItem, closeOthersMenuItem, closeGroupMenuItem,
-                new SeparatorMenuItem(), splitVerticallyMenuItem, splitHorizontallyMenuItem);
+    // closes a floating window of this skin along with the tabs it still shows
+    private void closeFloatingWindow(@NotNull String id) {
+        final FloatingWindow window = floatingWindows.remove(id);
+        if (window != null) {
+            window.getSkin().removeTree();
+            window.close();
+        }
+    }
+
+    private void closeFloatingWindows(@Nullable String except) {
+        for (String id : new ArrayList<>(floatingWindows.keySet())) {
+            if (!id.equals(except)) {
+                closeFloatingWindow(id);
+            }
+        }
+    }
+
+    // layout model
+
+    // takes a snapshot of the current layout. empty TabPanes (and SplitPanes holding nothing else) are left out
+    @NotNull
+    DockModel snapshot() {
+        if (dockOwner != null) { // the owner's skin holds the layout of its floating windows
+            return dockOwner.snapshot();
+        }
+        final DockModel model = new DockModel();
+        if (rootSplitPane != null) { // if not disposed
+            snapshotTree(model, model.getRoot());
+            for (FloatingWindow window : floatingWindows.values()) {
+                final DockableSkin skin = window.getSkin();
+                if (skin.rootSplitPane != null && containsTabs(skin.rootSplitPane)) {
+                    final DockModel.Window modelWindow = model.insertWindow(window.getId());
+                    final Stage stage = window.getStage();
+                    model.setWindowBounds(modelWindow, stage.getX(), stage.getY(), stage.getWidth(), stage.getHeight());
+                    skin.snapshotTree(model, modelWindow.getRoot());
+                }
+            }
+        }
+        return model;
+    }
+
+    // adds the tree of this skin to model below root (the model's root or the root of a floating window)
+    private void snapshotTree(@NotNull DockModel model, @NotNull DockModel.Split root) {
+        if (rootSplitPane != null) { // if not disposed
+            registerModelId(rootSplitPane, root.getId());
+            snapshotSplit(rootSplitPane, model, root);
+            // forget the ids of nodes that are no longer part of the layout
+            modelNodes.keySet().removeIf(id -> model.getItem(id) == null);
+            modelIds.values().removeIf(id -> model.getItem(id) == null);
+        }
+    }
+
+    private void snapshotSplit(@NotNull SplitPane splitPane, @NotNull DockModel model, @NotNull DockModel.Split split) {
+        for (Node node : splitPane.getItems()) {
+            if (node instanceof TabPane && !((TabPane) node).getTabs().isEmpty()) {
+                final TabPane tabPane = (TabPane) node;
+                final DockModel.Group group = model.insertGroup(split, split.getItems().size(), modelIdOf(tabPane));
+                for (Tab tab : tabPane.getTabs()) {
+                    model.insertTab(group, group.getTabIds().size(), tabIdOf(tab), getTitle(tab));
+                }
+                final Tab selected = tabPane.getSelectionModel().getSelectedItem();
+                model.setSelectedTabId(group, selected == null ? null : tabIdOf(selected));
+            } else if (node instanceof SplitPane && containsTabs((SplitPane) node)) {
+                final SplitPane child = (SplitPane) node;
+                snapshotSplit(child, model, model.insertSplit(split, split.getItems().size(), modelIdOf(child),
+                        child.getOrientation()));
+            }
+        }
+        // divider positions only carry over if no item was left out
+        final boolean complete = split.getItems().size() == splitPane.getItems().size();
+        model.setSplitLayout(split, splitPane.getOrientation(),
+                complete ? splitPane.getDividerPositions() : new double[0]);
+    }
+
+    private static boolean containsTabs(@NotNull SplitPane splitPane) {
+        for (Node node : splitPane.getItems()) {
+            if (node instanceof TabPane ? !((TabPane) node).getTabs().isEmpty() : containsTabs((SplitPane) node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // changes the scene graph to match model, only touching the TabPanes and SplitPanes whose contents differ.
+    // tabs that are not shown yet are created with content built lazily by contentFactory (from the tab id)
+    // (floating windows included: tabs move between windows without being rebuilt, windows the model does not have
+    // are closed, and missing ones are opened)
+    void apply(@NotNull DockModel model, @NotNull Function<String, ? extends Node> contentFactory) {
+        if (dockOwner != null) { // the owner's skin holds the layout of its floating windows
+            dockOwner.apply(model, contentFactory);
+            return;
+        }
+        model.validate();
+        if (rootSplitPane == null || getSkinnable() == null) { // if disposed
+            return;
+        }
+
+        final Map<String, Tab> existingTabs = new HashMap<>();
+        collectTabs(existingTabs);
+        for (FloatingWindow window : floatingWindows.values()) {
+            window.getSkin().collectTabs(existingTabs);
+        }
+
+        // a window emptied by one tree may be filled by a later one, so windows only close once every tree is applied
+        windowClosingSuspended++;
+        try {
+            applyTree(model, model.getRoot(), existingTabs, contentFactory);
+            final Set<String> windowIds = new HashSet<>();
+            for (DockModel.Window modelWindow : model.getWindows()) {
+                FloatingWindow window = floatingWindows.get(modelWindow.getId());
+                if (window == null) {
+                    window = createFloatingWindow(modelWindow.getId(), modelWindow.getX(), modelWindow.getY(),
+                            modelWindow.getWidth(), modelWindow.getHeight());
+                } else {
+                    window.setBounds(modelWindow.getX(), modelWindow.getY(), modelWindow.getWidth(),
+                            modelWindow.getHeight());
+                }
+                window.getSkin().applyTree(model, modelWindow.getRoot(), existingTabs, contentFactory);
+                windowIds.add(modelWindow.getId());
+            }
+            for (String id : new ArrayList<>(floatingWindows.keySet())) {
+                if (!windowIds.contains(id)) {
+                    closeFloatingWindow(id);
+                }
+            }
+        } finally {
+            windowClosingSuspended--;
+        }
+        for (FloatingWindow window : new ArrayList<>(floatingWindows.values())) {
+            window.getSkin().closeFloatingWindowIfEmpty();
+        }
+        showFloatingWindows();
+    }
+
+    private void collectTabs(@NotNull Map<String, Tab> tabs) {
+        for (TabPane tabPane : tabPanes) {
+            for (Tab tab : tabPane.getTabs()) {
+                tabs.put(tabIdOf(tab), tab);
+            }
+        }
+    }
+
+    // changes the tree of this skin to match the one below root (the model's root or the root of a floating window).
+    // existingTabs are the tabs of every tree, by id
+    private void applyTree(@NotNull DockModel model, @NotNull DockModel.Split root,
+                           @NotNull Map<String, Tab> existingTabs,
+                           @NotNull Function<String, ? extends Node> contentFactory) {
+        if (rootSplitPane == null) { // if disposed
+            return;
+        }
+        final Set<TabPane> previousTabPanes = new LinkedHashSet<>(tabPanes);
+
+        // resolve (or create) the node of every model item, and the lists each container should end up with
+        final Map<SplitPane, List<Node>> desiredItems = new IdentityHashMap<>();
+        final Map<TabPane, List<Tab>> desiredTabs = new IdentityHashMap<>();
+        final Map<String, Node> usedNodes = new HashMap<>();
+        final List<Tab> createdTabs = new ArrayList<>();
+        registerModelId(rootSplitPane, root.getId());
+        usedNodes.put(root.getId(), rootSplitPane);
+        resolveSplit(model, root, rootSplitPane, existingTabs, desiredItems, desiredTabs, usedNodes, createdTabs);
+
+        suspendCleanup();
+        try {
+            // first take every moving tab and node out of its current container (a node can only be in one)...
+            final Map<TabPane, List<Tab>> movingTabs = new IdentityHashMap<>();
+            desiredTabs.forEach((tabPane, tabs) -> {
+                for (Tab tab : tabs) {
+                    final TabPane current = tab.getTabPane();
+                    if (current != null && current != tabPane) {
+                        movingTabs.computeIfAbsent(current, it -> new ArrayList<>()).add(tab);
+                    }
+                }
+            });
+            movingTabs.forEach((tabPane, tabs) -> tabPane.getTabs().removeAll(tabs));
+
+            final Map<SplitPane, List<Node>> movingNodes = new IdentityHashMap<>();
+            desiredItems.forEach((splitPane, items) -> {
+                for (Node node : items) {
+                    final SplitPane current = findMostDirectContainer(node);
+                    if (current != null && current != splitPane) {
+                        movingNodes.computeIfAbsent(current, it -> new ArrayList<>()).add(node);
+                    }
+                }
+            });
+            movingNodes.forEach((splitPane, nodes) -> splitPane.getItems().removeAll(nodes));
+
+            // ...then replace the lists that still differ (one change per list)
+            desiredTabs.forEach((tabPane, tabs) -> {
+                if (!tabPane.getTabs().equals(tabs)) {
+                    tabPane.getTabs().setAll(tabs);
+                }
+            });
+            desiredItems.forEach((splitPane, items) -> {
+                if (!splitPane.getItems().equals(items)) {
+                    splitPane.getItems().setAll(items);
+                }
+            });
+
+            // tabs of groups that are no longer part of the layout are closed
+            for (TabPane tabPane : previousTabPanes) {
+                if (!desiredTabs.containsKey(tabPane)) {
+                    tabPane.getTabs().clear();
+                }
+            }
+        } finally {
+            resumeCleanup();
+        }
+
+        // divider positions and selection only make sense once everything is in place
+        applyLayout(root, usedNodes);
+
+        // new tabs only get their (lazy) content now, so the tabs TabPane selects while filling up are not built
+        for (Tab tab : createdTabs) {
+            final String tabId = tabIdOf(tab);
+            LazyContent.install(tab, () -> contentFactory.apply(tabId));
+            if (tab.isSelected()) {
+                hibernation.track(tab);
+            }
+        }
+
+        // forget the ids of nodes that are no longer used
+        modelIds.keySet().retainAll(usedNodes.values());
+        modelNodes.keySet().retainAll(usedNodes.keySet());
+    }
+
+    // replaces the whole layout with model, building the TabPane/SplitPane hierarchy in one pass
+    void restore(@NotNull DockModel model, @NotNull Function<String, ? extends Node> contentFactory) {
+        if (dockOwner != null) {
+            dockOwner.restore(model, contentFactory);
+            return;
+        }
+        removeAll();
+        apply(model, contentFactory);
+    }
+
+    private void resolveSplit(@NotNull DockModel model, @NotNull DockModel.Split split, @NotNull SplitPane splitPane,
+                              @NotNull Map<String, Tab> existingTabs,
+                              @NotNull Map<SplitPane, List<Node>> desiredItems,
+                              @NotNull Map<TabPane, List<Tab>> desiredTabs,
+                              @NotNull Map<String, Node> usedNodes,
+                              @NotNull List<Tab> createdTabs) {
+        if (splitPane.getOrientation() != split.getOrientation()) {
+            splitPane.setOrientation(split.getOrientation());
+        }
+        final List<Node> items = new ArrayList<>(split.getItems().size());
+        for (DockModel.Item item : split.getItems()) {
+            if (item instanceof DockModel.Group) {
+                final DockModel.Group group = (DockModel.Group) item;
+                final Node existing = modelNodes.get(group.getId());
+                final TabPane tabPane = existing instanceof TabPane ? (TabPane) existing : createTabPane();
+                registerModelId(tabPane, group.getId());
+
+                final List<Tab> tabs = new ArrayList<>(group.getTabIds().size());
+                for (String tabId : group.getTabIds()) {
+                    final String title = Objects.requireNonNullElse(model.getTitle(tabId), "");
+                    Tab tab = existingTabs.get(tabId);
+                    if (tab == null) {
+                        tab = createTab(title, null);
+                        setTabId(tab, tabId);
+                        createdTabs.add(tab);
+                    } else if (!title.equals(getTitle(tab))) {
+                        setTitle(tab, title);
+                    }
+                    tabs.add(tab);
+                }
+                desiredTabs.put(tabPane, tabs);
+                usedNodes.put(group.getId(), tabPane);
+                items.add(tabPane);
+            } else {
+                final DockModel.Split child = (DockModel.Split) item;
+                final Node existing = modelNodes.get(child.getId());
+                final SplitPane childSplitPane = existing instanceof SplitPane && existing != rootSplitPane
+                        ? (SplitPane) existing : createSplitPane();
+                registerModelId(childSplitPane, child.getId());
+                usedNodes.put(child.getId(), childSplitPane);
+                resolveSplit(model, child, childSplitPane, existingTabs, desiredItems, desiredTabs, usedNodes,
+                        createdTabs);
+                items.add(childSplitPane);
+            }
+        }
+        desiredItems.put(splitPane, items);
+    }
+
+    private static void applyLayout(@NotNull DockModel.Item item, @NotNull Map<String, Node> usedNodes) {
+        final Node node = usedNodes.get(item.getId());
+        if (item instanceof DockModel.Group) {
+            final String selectedTabId = ((DockModel.Group) item).getSelectedTabId();
+            final TabPane tabPane = (TabPane) node;
+            final Tab selected = tabPane.getSelectionModel().getSelectedItem();
+            if (selectedTabId != null && (selected == null || !selectedTabId.equals(tabIdOf(selected)))) {
+                for (Tab tab : tabPane.getTabs()) {
+                    if (selectedTabId.equals(tabIdOf(tab))) {
+                        tabPane.getSelectionModel().select(tab);
+                    }
+                }
+            }
+        } else {
+            final DockModel.Split split = (DockModel.Split) item;
+            final double[] positions = split.getDividerPositions();
+            final SplitPane splitPane = (SplitPane) node;
+            if (positions.length > 0 && !Arrays.equals(positions, splitPane.getDividerPositions())) {
+                splitPane.setDividerPositions(positions);
+            }
+            for (DockModel.Item child : split.getItems()) {
+                applyLayout(child, usedNodes);
+            }
+        }
+    }
+
+    @NotNull
+    private String modelIdOf(@NotNull Node node) {
+        final String id = modelIds.get(node);
+        if (id != null) {
+            return id;
+        }
+        final String newId = generateModelId(node instanceof TabPane ? "group-" : "split-");
+        registerModelId(node, newId);
+        return newId;
+    }
+
+    // ids are unique across the trees of the owner's skin and of its floating windows (which share one model)
+    @NotNull
+    private String generateModelId(@NotNull String prefix) {
+        if (dockOwner != null) {
+            return dockOwner.generateModelId(prefix);
+        }
+        String id;
+        do {
+            id = prefix + nextModelId++;
+        } while (isModelIdUsed(id));
+        return id;
+    }
+
+    private boolean isModelIdUsed(@NotNull String id) {
+        if (modelNodes.containsKey(id) || floatingWindows.containsKey(id)) {
+            return true;
+        }
+        for (FloatingWindow window : floatingWindows.values()) {
+            if (window.getSkin().modelNodes.containsKey(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void registerModelId(@NotNull Node node, @NotNull String id) {
+        final String previous = modelIds.put(node, id);
+        if (previous != null && !previous.equals(id)) {
+            modelNodes.remove(previous);
+        }
+        final Node previousNode = modelNodes.put(id, node);
+        if (previousNode != null && previousNode != node) {
+            modelIds.remove(previousNode);
+        }
+    }
+
+    // a pooled node backs a new group or split when reused
+    private void forgetModelId(@NotNull Node node) {
+        final String id = modelIds.remove(node);
+        if (id != null) {
+            modelNodes.remove(id, node);
+        }
+    }
+
+    // key of the MOUSE_PRESSED filter createTab(...) installs on a tab's label, in the tab's properties
+    private static final Object PRESS_FILTER = new Object();
+
+    // key of a tab's id in its properties (Tab.getId() is the css id, which stays the application's)
+    private static final Object TAB_ID = new Object();
+
+    private static final AtomicLong TAB_IDS = new AtomicLong();
+
+    // ids are unique across every DockablePane, so tabs can move between panes
+    @NotNull
+    private static String generateTabId() {
+        return "tab-" + TAB_IDS.incrementAndGet();
+    }
+
+    // the id of tab, assigning one if tab was added without going through addTab
+    @NotNull
+    static String tabIdOf(@NotNull Tab tab) {
+        final Object id = tab.getProperties().get(TAB_ID);
+        if (id instanceof String) {
+            return (String) id;
+        }
+        final String generated = generateTabId();
+        setTabId(tab, generated);
+        return generated;
+    }
+
+    private static void setTabId(@NotNull Tab tab, @NotNull String id) {
+        tab.getProperties().put(TAB_ID, id);
+    }
+
+    // tabs created by addTab show their title with a Label graphic (so it can be pressed to start a drag)
+    @NotNull
+    static String getTitle(@NotNull Tab tab) {
+        final String title = tab.getGraphic() instanceof Label ? ((Label) tab.getGraphic()).getText() : tab.getText();
+        return title == null ? "" : title;
+    }
+
+    @NotNull
+    static ObservableStringValue titleProperty(@NotNull Tab tab) {
+        return tab.getGraphic() instanceof Label ? ((Label) tab.getGraphic()).textProperty() : tab.textProperty();
+    }
+
+    static void setTitle(@NotNull Tab tab, @NotNull String title) {
+        if (tab.getGraphic() instanceof Label) {
+            ((Label) tab.getGraphic()).setText(title);
+        } else {
+            tab.setText(title);
+        }
+    }
+
+    @Override
+    public void splitTab(@NotNull Tab tab, @NotNull Orientation orientation) {
+        final TabPane tabPane = tab.getTabPane();
+        final DockableSkin owner = ownerOf(tabPane);
+        if (owner != null && owner != this) { // a tab of a floating window
+            owner.splitTab(tab, orientation);
+            return;
+        }
+        // if non-null and there are at least 2 tabs (otherwise there's nothing to split)
+        if (tabPane != null && tabPane.getTabs().size() > 1) {
+            final SplitPane parent = findMostDirectContainer(tabPane);
+            if (parent != null) {
+                clean();
+                // the new SplitPane (or the re-oriented parent) is flattened into its container if they line up
+                suspendCleanup();
+                try {
+                    // if 1 item, just add tabPane directly
+                    final TabPane newTabPane;
+                    if (parent.getItems().size() < 2) {
+                        parent.setOrientation(oppositeOrientation(orientation));
+                        newTabPane = createTabPane();
+                        tabPane.getTabs().remove(tab);
+                        newTabPane.getTabs().add(tab);
+                        parent.getItems().add(newTabPane);
+                    } else { // if more than one, put tabPane into a splitPane
+                        tabPane.getTabs().remove(tab);
+                        newTabPane = createTabPane();
+                        newTabPane.getTabs().add(tab);
+                        final int placement = parent.getItems().indexOf(tabPane);
+                        parent.getItems().remove(placement);
+                        final SplitPane newSplitPane = createSplitPane(tabPane, newTabPane);
+                        newSplitPane.setOrientation(oppositeOrientation(orientation));
+                        parent.getItems().add(placement, newSplitPane);
+                    }
+                } finally {
+                    resumeCleanup();
+                }
+                activateGroup(tab.getTabPane());
+            }
+        }
+    }
+
+    // drop zones
+
+    // the drop zone under the pointer of a drag that started in source. the middle of source is not a drop zone, so
+    // drags within it are left to the TabPane (e.g. to reorder tabs)
+    @Nullable
+    private DropZoneIndex.DropZone findDropZone(@NotNull MouseEvent event, @NotNull TabPane source) {
+        final DockablePane skinnable = getSkinnable();
+        if (skinnable == null) {
+            return null;
+        }
+        final Point2D point = skinnable.sceneToLocal(event.getSceneX(), event.getSceneY());
+        final DropZoneIndex.DropZone zone = point == null ? null : findDropZone(point.getX(), point.getY());
+        return zone == null || (zone.target == source && zone.side == null) ? null : zone;
+    }
+
+    // the drop zone at (x, y) in the coordinates of the pane, rebuilding the index if the layout changed since
+    @Nullable
+    DropZoneIndex.DropZone findDropZone(double x, double y) {
+        final DockablePane skinnable = getSkinnable();
+        if (skinnable == null) {
+            return null;
+        }
+        if (!dropZones.isValid()) {
+            dropZones.rebuild(skinnable, tabPanes);
+        }
+        return dropZones.find(x, y);
+    }
+
+    // shows where a tab dropped at zone would end up (hides the preview if zone is null)
+    private void showDropPreview(@Nullable DropZoneIndex.DropZone zone) {
+        final DockablePane skinnable = getSkinnable();
+        if (skinnable == null) {
+            return;
+        }
+        if (dropPreview == null) {
+            if (zone == null) {
+                return;
+            }
+            dropPreview = new Region();
+            dropPreview.getStyleClass().add("dock-drop-preview");
+            dropPreview.setStyle("-fx-background-color: rgba(0, 120, 215, 0.2); -fx-border-color: rgba(0, 120, 215, 0.8);");
+            dropPreview.setManaged(false);
+            dropPreview.setMouseTransparent(true);
+            skinnable.getDockChildren().add(dropPreview);
+        }
+        dropPreview.setVisible(zone != null);
+        if (zone != null) {
+            dropPreview.resizeRelocate(zone.preview.getMinX(), zone.preview.getMinY(),
+                    zone.preview.getWidth(), zone.preview.getHeight());
+        }
+    }
+
+    // shows tab's picture at the pointer, capturing it on the first drag event of the gesture
+    private void showDragGhost(@NotNull Tab tab, @NotNull MouseEvent event) {
+        final DockablePane skinnable = getSkinnable();
+        if (skinnable == null || !skinnable.isDragGhost()) {
+            return;
+        }
+        final Point2D point = skinnable.sceneToLocal(event.getSceneX(), event.getSceneY());
+        if (point == null) {
+            return;
+        }
+        if (dragGhost == null) {
+            dragGhost = new DragGhost();
+            skinnable.getDockChildren().add(dragGhost.getView());
+        }
+        if (dragGhost.isShowing()) {
+            dragGhost.move(point.getX(), point.getY());
+        } else {
+            dragGhost.getView().toFront();
+            dragGhost.show(tab, point.getX(), point.getY());
+        }
+    }
+
+    private void hideDragGhost() {
+        if (dragGhost != null) {
+            dragGhost.hide();
+        }
+    }
+
+    @Nullable
+    DragGhost getDragGhost() {
+        return dragGhost;
+    }
+
+    // moves tab into target (if side is null) or into a new group split off target's side
+    void dock(@NotNull Tab tab, @NotNull TabPane target, @Nullable Side side) {
+        final TabPane source = tab.getTabPane();
+        if (source == null || (source == target && (side == null || source.getTabs().size() < 2))) {
+            return;
+        }
+        final SplitPane parent = findMostDirectContainer(target);
+        if (parent == null) {
+            return;
+        }
+
+        suspendCleanup();
+        try {
+            source.getTabs().remove(tab);
+            if (side == null) {
+                target.getTabs().add(tab);
+            } else {
+                final TabPane tabPane = createTabPane();
+                tabPane.getTabs().add(tab);
+
+                final Orientation orientation = side.isHorizontal() ? Orientation.VERTICAL : Orientation.HORIZONTAL;
+                final boolean after = side == Side.RIGHT || side == Side.BOTTOM;
+                final int index = parent.getItems().indexOf(target);
+                if (parent.getItems().size() < 2 || parent.getOrientation() == orientation) {
+                    // target gives half of its space to the new group
+                    final double[] sizes = sizes(parent.getDividerPositions(), parent.getItems().size());
+                    final double[] newSizes = new double[sizes.length + 1];
+                    for (int i = 0; i < sizes.length; i++) {
+                        newSizes[i < index ? i : i + 1] = sizes[i];
+                    }
+                    newSizes[index] = sizes[index] / 2;
+                    newSizes[index + 1] = sizes[index] / 2;
+                    parent.setOrientation(orientation);
+                    parent.getItems().add(after ? index + 1 : index, tabPane);
+                    parent.setDividerPositions(positions(newSizes));
+                } else {
+                    final double[] positions = parent.getDividerPositions();
+                    parent.getItems().remove(index);
+                    final SplitPane splitPane = after ? createSplitPane(target, tabPane) : createSplitPane(tabPane, target);
+                    splitPane.setOrientation(orientation);
+                    parent.getItems().add(index, splitPane);
+                    parent.setDividerPositions(positions);
+                }
+            }
+            tab.getTabPane().getSelectionModel().select(tab);
+        } finally {
+            resumeCleanup();
+        }
+        activateGroup(tab.getTabPane());
+    }
+
+    private static Orientation oppositeOrientation(Orientation orientation) {
+        if (orientation == Orientation.HORIZONTAL) {
+            return Orientation.VERTICAL;
+        } else if (orientation == Orientation.VERTICAL) {
+            return Orientation.HORIZONTAL;
+        } else {
+            // impossible unless a new value is added down the road or something
+            throw new IllegalStateException("Orientation must equal HORIZONTAL or VERTICAL.");
+        }
+    }
+
+    private SplitPane createSplitPane(Node... items) {
+        final SplitPane pooled = pool.acquireSplitPane();
+        if (pooled != null) {
+            pooled.getItems().setAll(items);
+            return pooled;
+        }
+
+        // todo allow for factory like with createTabPane
+        final SplitPane splitPane = new SplitPane(items);
+        indexItems(splitPane);
+        dividerResize.install(splitPane);
+        splitPane.getItems().addListener((ListChangeListener<? super Node>) c -> closeSplitPaneIfEmpty(splitPane));
+        ContainerPool.remember(splitPane);
+
+        return splitPane;
+    }
+
+    private TabPane createTabPane() {
+        final DockablePane skinnable = getSkinnable();
+        final Builder<TabPane> factory = skinnable == null ? null : skinnable.getTabPaneFactory();
+        final TabPane pooled = pool.acquireTabPane(factory);
+        if (pooled != null) {
+            return pooled;
+        }
+
+        final TabPane tabPane = mapOrFallback(factory, Builder::build, this::createDefaultTabPane);
+        ContainerPool.tag(tabPane, factory);
+        tabPane.getProperties().put(DockableSkin.class, this); // see ownerOf(tabPane)
+
+        // the group the user works in receives the new tabs with TabTargetPolicy.ACTIVE_GROUP. it is activated by
+        // focus (see trackScene(scene)), and by clicks as well, which also land on nodes that take no focus
+        tabPane.addEventFilter(MouseEvent.MOUSE_PRESSED, event -> activateGroup(tabPane));
+
+        // while a tab is dragged, preview where it would be docked
+        tabPane.addEventFilter(MouseEvent.MOUSE_DRAGGED, event -> {
+            if (targetTab.get() != null) {
+                showDropPreview(findDropZone(event, tabPane));
+                showDragGhost(targetTab.get(), event);
+            }
+        });
+
+        tabPane.addEventFilter(MouseEvent.MOUSE_RELEASED, event -> {
+            final Tab tab = targetTab.get();
+            if (tab != null) {
+                showDropPreview(null);
+                hideDragGhost();
+                final DropZoneIndex.DropZone zone = findDropZone(event, tabPane);
+                if (zone != null && tab.getTabPane() == tabPane) {
+                    // consuming the event prevents index error handling upstream
+                    event.consume();
+                    dock(tab, zone.target, zone.side);
+                }
+                targetTab.set(null);
+            }
+        });
+
+        // bind the context menu to the tab whose header was clicked before the header shows tab.getContextMenu()
+        tabPane.addEventFilter(ContextMenuEvent.CONTEXT_MENU_REQUESTED, event -> {
+            final Tab tab = findHeaderTab(event.getTarget() instanceof Node ? (Node) event.getTarget() : null, tabPane);
+            if (tab != null) {
+                requestContextMenu(tab);
+            }
+        });
+
+        tabPane.getSelectionModel().selectedItemProperty().addListener((observable, oldTab, newTab) -> {
+            invalidateVisibility();
+            if (newTab != null && isListedHere(tabPane)) {
+                getTabLists().touch(newTab); // most recent in the tab switcher
+            }
+            if (newTab != null) {
+                LazyContent.materialize(newTab); // builds lazy (or hibernated) content before it is tracked
+                hibernation.track(newTab);
+                hibernation.enforce(getHibernationPolicy());
+            }
+        });
+
+        // track added and removed tabs, and automatically close tabPanes if 0 items
+        tabPane.getTabs().addListener((ListChangeListener<? super Tab>) c -> {
+            invalidateVisibility();
+            final boolean listed = isListedHere(tabPane);
+            while (c.next()) {
+                for (Tab tab : c.getRemoved()) {
+                    if (tab.getTabPane() == null) { // not just moved within (or into) another TabPane
+                        hibernation.forget(tab);
+                        getRegistry().unregister(tab);
+                    }
+                }
+                if (listed) {
+                    // a tab that was already added to another listed group stays listed
+                    final List<Tab> removed = new ArrayList<>(c.getRemovedSize());
+                    for (Tab tab : c.getRemoved()) {
+                        if (!isListed(tab.getTabPane())) {
+                            removed.add(tab);
+                        }
+                    }
+                    getTabLists().removeTabs(removed);
+                    getTabLists().addTabs(c.getAddedSubList());
+                }
+                for (Tab tab : c.getAddedSubList()) {
+                    hibernation.track(tab);
+                    getRegistry().register(tab);
+                }
+            }
+
+            if (tabPane.getTabs().isEmpty()) {
+                if (tabPanes.contains(tabPane)) {
+                    emptyTabPanes.add(tabPane);
+                }
+                closeTabPaneIfEmpty(tabPane);
+            } else {
+                emptyTabPanes.remove(tabPane);
+                hibernation.enforce(getHibernationPolicy());
+            }
+        });
+        ContainerPool.remember(tabPane);
+        return tabPane;
+    }
+
+    // visibility
+
+    private void invalidateVisibility() {
+        if (rootSplitPane != null) { // if not disposed
+            visibility.invalidate(tabPanes, rootSplitPane, rootSplitPane.getScene());
+        }
+    }
+
+    // the tabs of floating windows are reported by the pane that undocked them
+    private void fireTabVisibilityEvent(@NotNull TabVisibilityEvent event) {
+        final DockablePane target = dockOwner != null ? dockOwner.getSkinnable() : getSkinnable();
+        if (target != null) {
+            target.fireEvent(event);
+        }
+    }
+
+    // whether tab was visible after the last layout pass (see TabVisibilityEvent)
+    boolean isTabVisible(@NotNull Tab tab) {
+        if (visibility.isVisible(tab)) {
+            return true;
+        }
+        for (FloatingWindow window : floatingWindows.values()) {
+            if (window.getSkin().isTabVisible(tab)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the lists this skin's groups and tabs are listed in (the owner's, for the skin of a floating window)
+    @NotNull
+    TabLists getTabLists() {
+        return dockOwner != null ? dockOwner.tabLists : tabLists;
+    }
+
+    // whether tabPane is listed by this skin or by another skin sharing its lists
+    private boolean isListed(@Nullable TabPane tabPane) {
+        final DockableSkin owner = ownerOf(tabPane);
+        return owner != null && owner.isListedHere(tabPane) && owner.getTabLists() == getTabLists();
+    }
+
+    // attached TabPanes are listed, and so are the ones detached while the tree is rearranged
+    private boolean isListedHere(@NotNull TabPane tabPane) {
+        return tabPanes.contains(tabPane) || detachedGroups.contains(tabPane);
+    }
+
+    // group recency
+
+    @NotNull
+    ReadOnlyObjectProperty<TabPane> activeGroupProperty() {
+        return dockRoot().activeGroup.getReadOnlyProperty();
+    }
+
+    @Nullable
+    TabPane getActiveGroup() {
+        return dockRoot().activeGroup.get();
+    }
+
+    // the skin holding the active group of this skin's pane (the owner, for the skin of a floating window)
+    @NotNull
+    private DockableSkin dockRoot() {
+        return dockOwner != null ? dockOwner : this;
+    }
+
+    // makes tabPane the most recently used group (and the active one), if it is attached
+    private void activateGroup(@Nullable TabPane tabPane) {
+        final DockableSkin owner = ownerOf(tabPane);
+        if (owner != null && owner.tabPanes.contains(tabPane)) {
+            owner.recentGroups.touch(tabPane);
+            owner.dockRoot().activeGroup.set(tabPane);
+        }
+    }
+
+    // moves the listeners to scene (and its window), so keyboard navigation (and requestFocus) activates groups like
+    // clicks do, and so tabs are hidden while the tree is not shown
+    private void trackScene(@Nullable Scene scene) {
+        if (scene != trackedScene) {
+            if (trackedScene != null) {
+                trackedScene.focusOwnerProperty().removeListener(focusListener);
+                trackedScene.windowProperty().removeListener(windowListener);
+            }
+            trackedScene = scene;
+            if (trackedScene != null) {
+                trackedScene.focusOwnerProperty().addListener(focusListener);
+                trackedScene.windowProperty().addListener(windowListener);
+            }
+        }
+        trackWindow();
+    }
+
+    private void trackWindow() {
+        final Window window = trackedScene == null ? null : trackedScene.getWindow();
+        if (window != trackedWindow) {
+            if (trackedWindow != null) {
+                trackedWindow.showingProperty().removeListener(showingListener);
+                if (trackedWindow instanceof Stage) {
+                    ((Stage) trackedWindow).iconifiedProperty().removeListener(showingListener);
+                }
+            }
+            trackedWindow = window;
+            if (trackedWindow != null) {
+                trackedWindow.showingProperty().addListener(showingListener);
+                if (trackedWindow instanceof Stage) {
+                    ((Stage) trackedWindow).iconifiedProperty().addListener(showingListener);
+                }
+            }
+        }
+        preloadIcons();
+        invalidateVisibility();
+    }
+
+    // once the tree is first shown, starts decoding the icons of the default context menu at its window's output
+    // scale, so they are ready by the time the menu is first opened
+    private void preloadIcons() {
+        if (!iconsPreloaded && trackedWindow != null && trackedWindow.isShowing()) {
+            iconsPreloaded = true;
+            IconCache.getDefault().preload(trackedWindow.getOutputScaleX());
+        }
+    }
+
+    // activates the group of this tree that contains node (groups of nested panes are skipped for the enclosing one)
+    private void activateGroupOf(@Nullable Node node) {
+        for (Node current = node; current != null && current != rootSplitPane; current = current.getParent()) {
+            if (current instanceof TabPane && tabPanes.contains(current)) {
+                activateGroup((TabPane) current);
+                return;
+            }
+        }
+    }
+
+    // the most recently used attached group (groups detached during a rearrangement are skipped until forgotten)
+    @Nullable
+    private TabPane mostRecentGroup() {
+        for (TabPane tabPane : recentGroups) {
+            if (tabPanes.contains(tabPane)) {
+                return tabPane;
+            }
+        }
+        return null;
+    }
+
+    // drops a detached group from the lists and the recency order, and hands the active group on if it was the one
+    private void forgetGroup(@NotNull TabPane tabPane) {
+        getTabLists().removeGroup(tabPane);
+        recentGroups.remove(tabPane);
+        final DockableSkin root = dockRoot();
+        if (root.activeGroup.get() == tabPane) {
+            final TabPane next = mostRecentGroup();
+            root.activeGroup.set(next != null || root == this ? next : root.mostRecentGroup());
+        }
+    }
+
+    // forgets the groups that were detached while the tree was rearranged and not attached again
+    private void forgetDetachedGroups() {
+        if (cleanupSuspended == 0 && !detachedGroups.isEmpty()) {
+            final List<TabPane> detached = new ArrayList<>(detachedGroups);
+            detachedGroups.clear();
+            for (TabPane tabPane : detached) {
+                if (!tabPanes.contains(tabPane)) {
+                    forgetGroup(tabPane);
+                }
+            }
+        }
+    }
+
+    @NotNull
+    DividerResize getDividerResize() {
+        return dividerResize;
+    }
+
+    // the tabs of floating windows are registered with the pane that undocked them, like getTabLists()
+    @NotNull
+    private TabRegistry getRegistry() {
+        return dockRoot().registry;
+    }
+
+    // unregisters the tabs of tabPanes, leaving those of the other trees sharing the registry alone
+    private void unregisterTabs(@NotNull Collection<TabPane> tabPanes) {
+        if (dockOwner == null && floatingWindows.isEmpty()) {
+            registry.clear();
+            return;
+        }
+        final TabRegistry shared = getRegistry();
+        for (TabPane tabPane : tabPanes) {
+            for (Tab tab : tabPane.getTabs()) {
+                shared.unregister(tab);
+            }
+        }
+    }
+
+    @Nullable
+    Tab getTab(@NotNull String id) {
+        return getRegistry().get(id);
+    }
+
+    @NotNull
+    List<Tab> findTabs(@NotNull String titlePrefix, int limit) {
+        return getRegistry().findByTitlePrefix(titlePrefix, limit);
+    }
+
+    // only the owner's switcher is used, as it finds the tabs of the floating windows too
+    @NotNull
+    QuickSwitcher getQuickSwitcher() {
+        final DockableSkin root = dockRoot();
+        if (root.quickSwitcher == null) {
+            root.quickSwitcher = new QuickSwitcher(root.registry);
+        }
+        return root.quickSwitcher;
+    }
+
+    // only the owner's switcher is used, as it lists the tabs of the floating windows too
+    @NotNull
+    TabSwitcher getTabSwitcher() {
+        final DockableSkin root = dockRoot();
+        if (root.tabSwitcher == null) {
+            root.tabSwitcher = new TabSwitcher(root.tabLists.getRecentTabs());
+        }
+        return root.tabSwitcher;
+    }
+
+    void showTabSwitcher(boolean forward) {
+        if (rootSplitPane != null) { // if not disposed
+            getTabSwitcher().show(rootSplitPane, forward);
+        }
+    }
+
+    void showQuickSwitcher() {
+        if (rootSplitPane != null) { // if not disposed
+            getQuickSwitcher().show(rootSplitPane);
+        }
+    }
+
+    @Nullable
+    private TabHibernationPolicy getHibernationPolicy() {
+        final DockablePane skinnable = getSkinnable();
+        return skinnable == null ? null : skinnable.getHibernationPolicy();
+    }
+
+    void enforceHibernationPolicy() {
+        hibernation.enforce(getHibernationPolicy());
+    }
+
+    long getHibernationCount() {
+        return hibernation.getHibernationCount();
+    }
+
+    long getRestoreCount() {
+        return hibernation.getRestoreCount();
+    }
+
+    // whether anything this skin (or the skin of one of its floating windows) keeps refers to value, e.g. a closed tab
+    // or group that should be collectable, see DockablePane.releaseClosedTabsProperty()
+    boolean holds(@NotNull Object value) {
+        if (containers.containsKey(value) || containers.containsValue(value) || tabPanes.contains(value)
+                || emptyTabPanes.contains(value) || detachedGroups.contains(value) || emptySplitPanes.contains(value)
+                || dirtySplitPanes.contains(value) || modelIds.containsKey(value) || modelNodes.containsValue(value)
+                || value == targetTab.get() || value == contextMenuTab || value == rootTabPane
+                || value == activeGroup.get() || value instanceof TabPane && recentGroups.contains((TabPane) value)
+                || hibernation.holds(value) || visibility.holds(value) || registry.holds(value)
+                || tabLists.holds(value) || dropZones.holds(value) || pool.holds(value)) {
+            return true;
+        }
+        for (FloatingWindow window : floatingWindows.values()) {
+            if (window.getSkin().holds(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long getPoolHitCount() {
+        return pool.getHitCount();
+    }
+
+    long getPoolMissCount() {
+        return pool.getMissCount();
+    }
+
+    @NotNull
+    private static <T,R> R mapOrFallback(@Nullable T initial, Function<T, @Nullable R> map, @NotNull Supplier<R> fallback) {
+        if (initial == null) {
+            return fallback.get();
+        } else {
+            return Objects.requireNonNullElseGet(map.apply(initial), fallback);
+        }
+    }
+
+    @NotNull
+    private static <T,U,R> R mapOrFallback(@Nullable T initial, Function<T, @Nullable U> map1, Function<U, @Nullable R> map2, @NotNull Supplier<R> fallback) {
+        if (initial == null) {
+            return fallback.get();
+        } else {
+            return mapOrFallback(map1.apply(initial), map2, fallback);
+        }
+    }
+
+    private void closeTabPaneIfEmpty(TabPane tabPane) {
+        if (tabPane.getTabs().isEmpty() && cleanupSuspended == 0) {
+            final SplitPane parent = findMostDirectContainer(tabPane);
+            if (parent != null) {
+                // if the closing tabPane was the root, resolveRootTabPane() picks another tabPane on next use
+                parent.getItems().remove(tabPane);
+                forgetModelId(tabPane);
+                if (tabPane == rootTabPane) {
+                    resolveRootTabPane(); // so the field does not keep the closed tabPane reachable
+                }
+                if (!isReleaseClosedTabs()) { // pooled TabPanes are reachable by design
+                    pool.release(tabPane);
+                }
+                normalize();
+                closeFloatingWindowIfEmpty();
+            }
+        }
+    }
+
+    private void closeSplitPaneIfEmpty(SplitPane splitPane) {
+        if (splitPane.getItems().isEmpty()) {
+            if (cleanupSuspended > 0) {
+                emptySplitPanes.add(splitPane);
+                return;
+            }
+            final SplitPane parent = findMostDirectContainer(splitPane);
+            if (parent != null) {
+                parent.getItems().remove(splitPane);
+                forgetModelId(splitPane);
+                if (!isReleaseClosedTabs()) {
+                    pool.release(splitPane);
+                }
+            }
+        }
+    }
+
+    private TabPane createDefaultTabPane() {
+        final TabPane tabPane = new TabPane();
+        tabPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        tabPane.setTabDragPolicy(TabPane.TabDragPolicy.REORDER);
+        return tabPane;
+    }
+
+    @NotNull
+    private ContextMenu getDefaultContextMenu() {
+        if (defaultContextMenu == null) {
+            final MenuItem closeMenuItem = new MenuItem("Close");
+            closeMenuItem.setOnAction(event -> ifContextMenuTab(this::removeTab));
+
+            final MenuItem closeOthersMenuItem = new MenuItem("Close Others");
+            closeOthersMenuItem.setOnAction(event -> ifContextMenuTab(this::removeAllOtherTabsInGroup));
+
+            final MenuItem closeGroupMenuItem = new MenuItem("Close Group");
+            closeGroupMenuItem.setOnAction(event -> ifContextMenuTab(this::removeGroup));
+
+            // decoded in the background (see preloadIcons()), at the menu's output scale
+            final ImageView v = IconCache.getDefault().createView(IconCache.VERTICAL_SPLIT);
+            final ImageView h = IconCache.getDefault().createView(IconCache.HORIZONTAL_SPLIT);
+
+            final MenuItem splitVerticallyMenuItem = new MenuItem("Split Vertically", v);
+            splitVerticallyMenuItem.setOnAction(event -> ifContextMenuTab(tab -> splitTab(tab, Orientation.VERTICAL)));
+
+            final MenuItem splitHorizontallyMenuItem = new MenuItem("Split Horizontally", h);
+            splitHorizontallyMenuItem.setOnAction(event -> ifContextMenuTab(tab -> splitTab(tab, Orientation.HORIZONTAL)));
+
+            final MenuItem undockMenuItem = new MenuItem("Undock");
+            undockMenuItem.setOnAction(event -> ifContextMenuTab(this::undockTab));
+
+            final MenuItem undockGroupMenuItem = new MenuItem("Undock Group");
+            undockGroupMenuItem.setOnAction(event -> ifContextMenuTab(this::undockGroup));
+
+            final MenuItem redockMenuItem = new MenuItem("Redock");
+            redockMenuItem.setOnAction(event -> ifContextMenuTab(this::redockTab));
+
+            defaultContextMenu = new ContextMenu(closeMenuItem, closeOthersMenuItem, closeGroupMenuItem,
+                    new SeparatorMenuItem(), splitVerticallyMenuItem, splitHorizontallyMenuItem,
+                    new SeparatorMenuItem(), undockMenuItem, undockGroupMenuItem, redockMenuItem);
+        }
+        return defaultContextMenu;
+    }
+
+    private void ifContextMenuTab(@NotNull Consumer<Tab> action) {
+        final Tab tab = contextMenuTab;
+        if (tab != null) {
+            action.accept(tab);
+        }
     }
 
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.control.Tab;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// a downscaled picture of a dragged tab (its header over its content) that follows the pointer. it is captured once
+// when the drag starts, so moving it never lays out or styles the tab's real content, which only moves on drop
+final class DragGhost {
+
+    // the largest width (and height) of the picture, in pixels
+    static final double MAX_SIZE = 240;
+
+    private final ImageView header = new ImageView();
+    private final ImageView content = new ImageView();
+    private final VBox view = new VBox(header, content);
+
+    // reused by the next drag if still large enough (see Node.snapshot(SnapshotParameters, WritableImage))
+    @Nullable
+    private WritableImage headerImage;
+    @Nullable
+    private WritableImage contentImage;
+
+    private boolean showing = false;
+
+    DragGhost() {
+        view.getStyleClass().add("dock-drag-ghost");
+        view.setOpacity(0.75);
+        view.setManaged(false);
+        view.setMouseTransparent(true);
+        view.setVisible(false);
+    }
+
+    @NotNull
+    Node getView() {
+        return view;
+    }
+
+    boolean isShowing() {
+        return showing;
+    }
+
+    // captures tab and shows it at (x, y) in the coordinates of the ghost's parent
+    void show(@NotNull Tab tab, double x, double y) {
+        headerImage = capture(tab.getGraphic(), headerImage);
+        contentImage = capture(tab.getContent(), contentImage);
+        header.setImage(headerImage);
+        content.setImage(contentImage);
+        // the images may be larger than what they show (when reused), so only their captured part is shown
+        header.setViewport(viewport(tab.getGraphic(), headerImage));
+        content.setViewport(viewport(tab.getContent(), contentImage));
+        view.autosize();
+        view.setVisible(true);
+        showing = true;
+        move(x, y);
+    }
+
+    void move(double x, double y) {
+        if (showing) {
+            view.relocate(x + 12, y + 12); // beside the pointer, so the drop target stays visible
+        }
+    }
+
+    void hide() {
+        showing = false;
+        view.setVisible(false);
+        header.setImage(null);
+        content.setImage(null);
+    }
+
+    @Nullable
+    private static WritableImage capture(@Nullable Node node, @Nullable WritableImage reuse) {
+        if (node == null || node.getLayoutBounds().isEmpty()) {
+            return null;
+        }
+        final double scale = scale(node.getLayoutBounds());
+        final SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setTransform(Transform.scale(scale, scale));
+        parameters.setFill(Color.TRANSPARENT);
+        final int width = (int) Math.ceil(node.getLayoutBounds().getWidth() * scale);
+        final int height = (int) Math.ceil(node.getLayoutBounds().getHeight() * scale);
+        final boolean fits = reuse != null && reuse.getWidth() >= width && reuse.getHeight() >= height;
+        return node.snapshot(parameters, fits ? reuse : null);
+    }
+
+    @Nullable
+    private static Rectangle2D viewport(@Nullable Node node, @Nullable WritableImage image) {
+        if (node == null || image == null) {
+            return null;
+        }
+        final double scale = scale(node.getLayoutBounds());
+        return new Rectangle2D(0, 0,
+                Math.min(image.getWidth(), Math.ceil(node.getLayoutBounds().getWidth() * scale)),
+                Math.min(image.getHeight(), Math.ceil(node.getLayoutBounds().getHeight() * scale)));
+    }
+
+    private static double scale(@NotNull Bounds bounds) {
+        return Math.min(1, MAX_SIZE / Math.max(bounds.getWidth(), bounds.getHeight()));
+    }
+
+}
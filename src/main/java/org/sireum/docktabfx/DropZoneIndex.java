@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Side;
+import javafx.scene.Node;
+import javafx.scene.control.TabPane;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// the bounds of every group (in the coordinates of the DockablePane), cached between layout passes so hit-testing a
+// drag only compares the pointer against a few arrays instead of converting bounds through the scene graph. a point
+// over a group's header or middle drops into the group, a point near one of its edges splits that edge off
+final class DropZoneIndex {
+
+    // share of a group's width (or height) next to each edge that docks to that edge
+    static final double EDGE = 0.25;
+
+    private TabPane[] tabPanes = new TabPane[0];
+    // minX, minY, maxX, maxY and the bottom of the header area of each group
+    private double[] bounds = new double[0];
+    private int size = 0;
+    private boolean valid = false;
+
+    // a position to drop a dragged tab at: in target (side == null) or split off target's side
+    static final class DropZone {
+        final TabPane target;
+        @Nullable
+        final Side side;
+        final Bounds preview;
+
+        DropZone(@NotNull TabPane target, @Nullable Side side, @NotNull Bounds preview) {
+            this.target = target;
+            this.side = side;
+            this.preview = preview;
+        }
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    // rebuilds the index from the current (laid out) bounds of tabPanes
+    void rebuild(@NotNull Node owner, @NotNull Collection<TabPane> tabPanes) {
+        clear();
+        for (TabPane tabPane : tabPanes) {
+            if (tabPane.getScene() == null || tabPane.getScene() != owner.getScene()) {
+                continue;
+            }
+            final Bounds local = owner.sceneToLocal(tabPane.localToScene(tabPane.getLayoutBounds()));
+            final Node header = findHeader(tabPane);
+            double headerBottom = local.getMinY();
+            if (header != null && header.isVisible()) {
+                headerBottom = owner.sceneToLocal(header.localToScene(header.getLayoutBounds())).getMaxY();
+            }
+            add(tabPane, local, headerBottom);
+        }
+        valid = true;
+    }
+
+    // the header area of tabPane's own skin (a lookup would also search the tabs' content, which may hold TabPanes)
+    @Nullable
+    private static Node findHeader(@NotNull TabPane tabPane) {
+        if (tabPane.getSkin() instanceof VirtualizedTabPaneSkin) {
+            return ((VirtualizedTabPaneSkin) tabPane.getSkin()).getHeaders();
+        }
+        for (Node child : tabPane.getChildrenUnmodifiable()) { // TabPaneSkin
+            if (child.getStyleClass().contains("tab-header-area")) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    void clear() {
+        Arrays.fill(tabPanes, 0, size, null);
+        size = 0;
+        valid = false;
+    }
+
+    // whether value is one of the indexed groups (cleared slots hold null)
+    boolean holds(@NotNull Object value) {
+        for (TabPane tabPane : tabPanes) {
+            if (tabPane == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(@NotNull TabPane tabPane, @NotNull Bounds local, double headerBottom) {
+        if (size == tabPanes.length) {
+            tabPanes = Arrays.copyOf(tabPanes, Math.max(8, size * 2));
+            bounds = Arrays.copyOf(bounds, tabPanes.length * 5);
+        }
+        tabPanes[size] = tabPane;
+        final int i = size * 5;
+        bounds[i] = local.getMinX();
+        bounds[i + 1] = local.getMinY();
+        bounds[i + 2] = local.getMaxX();
+        bounds[i + 3] = local.getMaxY();
+        bounds[i + 4] = Math.max(local.getMinY(), Math.min(local.getMaxY(), headerBottom));
+        size++;
+        valid = true;
+    }
+
+    // the drop zone under (x, y), or null if no group is there
+    @Nullable
+    DropZone find(double x, double y) {
+        for (int n = 0; n < size; n++) {
+            final int i = n * 5;
+            final double minX = bounds[i], minY = bounds[i + 1], maxX = bounds[i + 2], maxY = bounds[i + 3];
+            if (x < minX || x >= maxX || y < minY || y >= maxY) {
+                continue;
+            }
+            final Bounds whole = new BoundingBox(minX, minY, maxX - minX, maxY - minY);
+            final double headerBottom = bounds[i + 4];
+            if (y < headerBottom) {
+                return new DropZone(tabPanes[n], null, whole);
+            }
+
+            // the closest edge (relative to the size of the content area) if it is close enough
+            final double width = maxX - minX;
+            final double height = maxY - headerBottom;
+            final double left = (x - minX) / width;
+            final double right = (maxX - x) / width;
+            final double top = (y - headerBottom) / height;
+            final double bottom = (maxY - y) / height;
+            final double closest = Math.min(Math.min(left, right), Math.min(top, bottom));
+            if (closest >= EDGE) {
+                return new DropZone(tabPanes[n], null, whole);
+            } else if (closest == left) {
+                return new DropZone(tabPanes[n], Side.LEFT, new BoundingBox(minX, minY, width / 2, maxY - minY));
+            } else if (closest == right) {
+                return new DropZone(tabPanes[n], Side.RIGHT,
+                        new BoundingBox(minX + width / 2, minY, width / 2, maxY - minY));
+            } else if (closest == top) {
+                return new DropZone(tabPanes[n], Side.TOP, new BoundingBox(minX, minY, width, (maxY - minY) / 2));
+            } else {
+                return new DropZone(tabPanes[n], Side.BOTTOM,
+                        new BoundingBox(minX, minY + (maxY - minY) / 2, width, (maxY - minY) / 2));
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// a Stage of its own showing undocked tabs in a child DockablePane, so its layout (and css) passes are independent of
+// the owner pane's scene. the child pane follows the owner's factories and policies, and tells the owner's skin once
+// it has no tabs left (see DockableSkin.closeFloatingWindowIfEmpty)
+final class FloatingWindow {
+
+    @NotNull
+    private final String id;
+    @NotNull
+    private final DockablePane pane = new DockablePane();
+    @NotNull
+    private final Stage stage = new Stage();
+
+    FloatingWindow(@NotNull String id, @NotNull DockableSkin owner, @NotNull DockablePane ownerPane,
+                   double x, double y, double width, double height) {
+        this.id = id;
+        pane.tabPaneFactoryProperty().bind(ownerPane.tabPaneFactoryProperty());
+        pane.contextMenuFactoryProperty().bind(ownerPane.contextMenuFactoryProperty());
+        pane.hibernationPolicyProperty().bind(ownerPane.hibernationPolicyProperty());
+        pane.releaseClosedTabsProperty().bind(ownerPane.releaseClosedTabsProperty());
+        pane.dragGhostProperty().bind(ownerPane.dragGhostProperty());
+        pane.dividerResizeModeProperty().bind(ownerPane.dividerResizeModeProperty());
+        pane.dividerResizeIntervalProperty().bind(ownerPane.dividerResizeIntervalProperty());
+        getSkin().makeFloating(owner, id);
+
+        stage.setScene(new Scene(pane));
+        setBounds(x, y, width, height);
+        // closing the window puts its tabs back instead of closing them
+        stage.setOnCloseRequest(event -> {
+            event.consume();
+            owner.redockWindow(id);
+        });
+    }
+
+    @NotNull
+    String getId() {
+        return id;
+    }
+
+    @NotNull
+    DockablePane getPane() {
+        return pane;
+    }
+
+    @NotNull
+    DockableSkin getSkin() {
+        return pane.ensureSkin();
+    }
+
+    @NotNull
+    Stage getStage() {
+        return stage;
+    }
+
+    // shows the window over the owner's, unless the owner is not showing (it is then shown with the next undock)
+    void show(@Nullable Window owner) {
+        if (owner == null || !owner.isShowing() || stage.isShowing()) {
+            return;
+        }
+        if (stage.getOwner() == null) {
+            stage.initOwner(owner);
+        }
+        stage.show();
+    }
+
+    // the bounds of the Stage (decorations included), as kept by DockModel.Window
+    void setBounds(double x, double y, double width, double height) {
+        stage.setX(x);
+        stage.setY(y);
+        stage.setWidth(width);
+        stage.setHeight(height);
+    }
+
+    void close() {
+        stage.hide();
+        pane.tabPaneFactoryProperty().unbind();
+        pane.contextMenuFactoryProperty().unbind();
+        pane.hibernationPolicyProperty().unbind();
+        pane.releaseClosedTabsProperty().unbind();
+        pane.dragGhostProperty().unbind();
+        pane.dividerResizeModeProperty().unbind();
+        pane.dividerResizeIntervalProperty().unbind();
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.stage.Screen;
+import javafx.stage.Window;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// icons in up to three resolutions (1x, 2x and 3x), registered by name with their size in logical pixels, and decoded
+// (once, then shared) in the background at the output scale of the screen they are shown on. the default cache holds
+// the icons of the default context menu
+public final class IconCache {
+
+    public static final String VERTICAL_SPLIT = "vertical-split";
+    public static final String HORIZONTAL_SPLIT = "horizontal-split";
+
+    private static final class Icon {
+        private final double size;
+        // variant urls by scale - 1 (a null entry means the scale is missing)
+        private final URL[] variants;
+
+        private Icon(double size, URL[] variants) {
+            this.size = size;
+            this.variants = variants;
+        }
+    }
+
+    private final Map<String, Icon> icons = new ConcurrentHashMap<>();
+
+    // decoded (or decoding) images by name and variant scale
+    private final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    // thread-safe lazy holder of the default cache
+    private static final class DefaultHolder {
+        private static final IconCache INSTANCE = createDefault();
+    }
+
+    @NotNull
+    public static IconCache getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    @NotNull
+    private static IconCache createDefault() {
+        final IconCache cache = new IconCache();
+        for (String name : new String[]{VERTICAL_SPLIT, HORIZONTAL_SPLIT}) {
+            cache.register(name, 16, DockableSkin.class.getResource(name + ".png"),
+                    DockableSkin.class.getResource(name + "@2x.png"),
+                    DockableSkin.class.getResource(name + "@3x.png"));
+        }
+        return cache;
+    }
+
+    // registers (or replaces) the icon called name, which is size x size logical pixels. missing variants are null, but
+    // at least one must be given
+    public void register(@NotNull String name, double size, @Nullable URL url1x, @Nullable URL url2x,
+                         @Nullable URL url3x) {
+        if (url1x == null && url2x == null && url3x == null) {
+            throw new IllegalArgumentException("Icon " + name + " has no variant.");
+        }
+        icons.put(name, new Icon(size, new URL[]{url1x, url2x, url3x}));
+        images.keySet().removeIf(key -> key.startsWith(name + '@'));
+    }
+
+    public boolean contains(@NotNull String name) {
+        return icons.containsKey(name);
+    }
+
+    // starts decoding the variant of each registered icon for outputScale, so views created later show it right away
+    public void preload(double outputScale) {
+        for (String name : icons.keySet()) {
+            getImage(name, outputScale);
+        }
+    }
+
+    // a view of the icon called name, sized to the icon, that shows the variant for its window's output scale (or the
+    // primary screen's until it is in a window), following it when the window moves to another screen. it shows
+    // nothing until that variant is decoded
+    @NotNull
+    public ImageView createView(@NotNull String name) {
+        final Icon icon = requireIcon(name);
+        final ImageView view = new ImageView();
+        view.setFitWidth(icon.size);
+        view.setFitHeight(icon.size);
+        view.setPreserveRatio(true);
+        view.setSmooth(true);
+        new ScaleTracker(this, name, view).update();
+        return view;
+    }
+
+    // the image of the icon called name for outputScale, loaded in the background on first request and decoded at its
+    // displayed size times the variant's scale
+    @NotNull
+    public Image getImage(@NotNull String name, double outputScale) {
+        final Icon icon = requireIcon(name);
+        final int scale = variantScale(outputScale, icon.variants);
+        return images.computeIfAbsent(name + '@' + scale, key -> {
+            final double size = icon.size * scale;
+            return new Image(icon.variants[scale - 1].toExternalForm(), size, size, true, true, true);
+        });
+    }
+
+    // the scale of the variant to show at outputScale: the smallest one at least as large, or else the largest one
+    static int variantScale(double outputScale, @NotNull Object[] variants) {
+        int largest = 0;
+        for (int scale = 1; scale <= variants.length; scale++) {
+            if (variants[scale - 1] != null) {
+                if (scale >= outputScale) {
+                    return scale;
+                }
+                largest = scale;
+            }
+        }
+        return largest;
+    }
+
+    @NotNull
+    private Icon requireIcon(@NotNull String name) {
+        final Icon icon = icons.get(name);
+        if (icon == null) {
+            throw new IllegalArgumentException("No icon named " + name + ".");
+        }
+        return icon;
+    }
+
+    // keeps the image of a view in line with the output scale of the window it is in
+    private static final class ScaleTracker implements InvalidationListener {
+        private final IconCache cache;
+        private final String name;
+        private final ImageView view;
+
+        @Nullable
+        private Scene scene;
+        @Nullable
+        private Window window;
+
+        private ScaleTracker(@NotNull IconCache cache, @NotNull String name, @NotNull ImageView view) {
+            this.cache = cache;
+            this.name = name;
+            this.view = view;
+            view.sceneProperty().addListener(this);
+        }
+
+        @Override
+        public void invalidated(Observable observable) {
+            update();
+        }
+
+        private void update() {
+            final Scene newScene = view.getScene();
+            if (newScene != scene) {
+                if (scene != null) {
+                    scene.windowProperty().removeListener(this);
+                }
+                scene = newScene;
+                if (scene != null) {
+                    scene.windowProperty().addListener(this);
+                }
+            }
+            final Window newWindow = scene == null ? null : scene.getWindow();
+            if (newWindow != window) {
+                if (window != null) {
+                    window.outputScaleXProperty().removeListener(this);
+                }
+                window = newWindow;
+                if (window != null) {
+                    window.outputScaleXProperty().addListener(this);
+                }
+            }
+            final double outputScale = window != null ? window.getOutputScaleX()
+                    : Screen.getPrimary().getOutputScaleX();
+            final Image image = cache.getImage(name, outputScale);
+            if (!Objects.equals(view.getImage(), image)) {
+                view.setImage(image);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sireum.docktabfx;
+
+import javafx.collections.ObservableListBase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// observable list of distinct values that knows the position of each (by identity), so contains and indexOf are O(1)
+// and removing k values costs O(k log k) plus shifting the values after the first removed one, instead of a pass over
+// the whole list. values are only appended, and both appending and removing fire a single change
+final class IndexedList<T> extends ObservableListBase<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private final Map<T, Integer> positions = new IdentityHashMap<>();
+
+    @Override
+    public T get(int index) {
+        return values.get(index);
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return positions.containsKey(value);
+    }
+
+    @Override
+    public int indexOf(Object value) {
+        final Integer position = positions.get(value);
+        return position == null ? -1 : position;
+    }
+
+    @Override
+    public int lastIndexOf(Object value) {
+        return indexOf(value);
+    }
+
+    // appends the given values that are not listed yet
+    void append(@NotNull Collection<? extends T> added) {
+        final int from = values.size();
+        for (T value : added) {
+            if (!positions.containsKey(value)) {
+                positions.put(value, values.size());
+                values.add(value);
+            }
+        }
+        if (values.size() > from) {
+            beginChange();
+            nextAdd(from, values.size());
+            endChange();
+        }
+    }
+
+    // removes the given values that are listed
+    void remove(@NotNull Collection<? extends T> removed) {
+        final int[] indices = new int[removed.size()];
+        int count = 0;
+        for (T value : removed) {
+            final Integer position = positions.remove(value);
+            if (position != null) {
+                indices[count++] = position;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        Arrays.sort(indices, 0, count);
+
+        // one pass from the first removed value compacts the rest (the removals are reported in ascending order, each
+        // at its index in the list as left by the previous ones)
+        beginChange();
+        int next = 0;
+        int write = indices[0];
+        for (int read = indices[0]; read < values.size(); read++) {
+            final T value = values.get(read);
+            if (next < count && indices[next] == read) {
+                nextRemove(read - next, value);
+                next++;
+            } else {
+                values.set(write, value);
+                positions.put(value, write);
+                write++;
+            }
+        }
+        values.subList(write, values.size()).clear();
+        endChange();
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.Node;
+import javafx.scene.control.Tab;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Supplier;
+
+// builds the content of a tab the first time it is selected. until then the tab has no content, so the (empty)
+// content area of its TabPane acts as the placeholder. the pending instance lives in the tab's properties, which
+// means it moves along with the tab (drag, splitTab, ...) without any bookkeeping
+final class LazyContent implements ChangeListener<Boolean> {
+
+    @NotNull
+    private final Tab tab;
+
+    @NotNull
+    private final Supplier<? extends Node> content;
+
+    private LazyContent(@NotNull Tab tab, @NotNull Supplier<? extends Node> content) {
+        this.tab = tab;
+        this.content = content;
+    }
+
+    // replaces the content of tab with content.get() once tab is selected (immediately if it already is)
+    static void install(@NotNull Tab tab, @NotNull Supplier<? extends Node> content) {
+        cancel(tab);
+        tab.setContent(null);
+
+        final LazyContent lazyContent = new LazyContent(tab, content);
+        if (tab.isSelected()) {
+            lazyContent.materialize();
+        } else {
+            tab.getProperties().put(LazyContent.class, lazyContent);
+            tab.selectedProperty().addListener(lazyContent);
+        }
+    }
+
+    // true iff the content of tab has not been built yet
+    static boolean isPending(@NotNull Tab tab) {
+        return get(tab) != null;
+    }
+
+    // builds the content of tab now (if still pending)
+    static void materialize(@NotNull Tab tab) {
+        final LazyContent lazyContent = get(tab);
+        if (lazyContent != null) {
+            lazyContent.materialize();
+        }
+    }
+
+    // drops the pending content of tab without building it
+    static void cancel(@NotNull Tab tab) {
+        final LazyContent lazyContent = get(tab);
+        if (lazyContent != null) {
+            lazyContent.uninstall();
+        }
+    }
+
+    @Nullable
+    private static LazyContent get(@NotNull Tab tab) {
+        if (tab.hasProperties()) {
+            final Object value = tab.getProperties().get(LazyContent.class);
+            if (value instanceof LazyContent) {
+                return (LazyContent) value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
+        if (newValue) {
+            materialize();
+        }
+    }
+
+    private void materialize() {
+        uninstall();
+        tab.setContent(content.get());
+    }
+
+    private void uninstall() {
+        tab.selectedProperty().removeListener(this);
+        tab.getProperties().remove(LazyContent.class, this);
+    }
+
+}
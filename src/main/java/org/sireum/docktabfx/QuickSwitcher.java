@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
+import org.jetbrains.annotations.NotNull;
+
+// a popup listing the tabs whose title starts with the typed text. matches come from the TabRegistry and the list is
+// virtualized, so each keystroke costs O(log n + MAX_RESULTS) however many tabs there are
+final class QuickSwitcher {
+
+    static final int MAX_RESULTS = 1_000;
+
+    private final TabRegistry registry;
+    private final Popup popup = new Popup();
+    private final TextField query = new TextField();
+    private final ListView<Tab> results = new ListView<>();
+
+    QuickSwitcher(@NotNull TabRegistry registry) {
+        this.registry = registry;
+
+        query.setPromptText("Go to tab");
+        query.textProperty().addListener(observable -> update());
+
+        results.setCellFactory(it -> new ListCell<>() {
+            @Override
+            protected void updateItem(Tab tab, boolean empty) {
+                super.updateItem(tab, empty);
+                setText(empty || tab == null ? null : DockableSkin.getTitle(tab));
+            }
+        });
+        results.setFocusTraversable(false);
+        results.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) {
+                selectAndHide();
+            }
+        });
+
+        query.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            switch (event.getCode()) {
+                case ENTER:
+                    selectAndHide();
+                    break;
+                case ESCAPE:
+                    popup.hide();
+                    break;
+                case DOWN:
+                    results.getSelectionModel().selectNext();
+                    results.scrollTo(results.getSelectionModel().getSelectedIndex());
+                    break;
+                case UP:
+                    results.getSelectionModel().selectPrevious();
+                    results.scrollTo(results.getSelectionModel().getSelectedIndex());
+                    break;
+                default:
+                    return;
+            }
+            event.consume();
+        });
+
+        final VBox root = new VBox(query, results);
+        root.getStyleClass().add("quick-switcher");
+        root.setStyle("-fx-background-color: -fx-background; -fx-padding: 4; -fx-spacing: 4;");
+        popup.getContent().add(root);
+        popup.setAutoHide(true);
+        popup.setOnHidden(event -> results.getItems().clear()); // so closed tabs are not kept reachable
+    }
+
+    // shows the popup centered at the top of owner, listing every tab until something is typed
+    void show(@NotNull Node owner) {
+        query.clear();
+        update();
+        final Bounds bounds = owner.localToScreen(owner.getBoundsInLocal());
+        if (bounds != null) {
+            results.setPrefWidth(Math.max(240, bounds.getWidth() / 2));
+            popup.show(owner, bounds.getMinX() + bounds.getWidth() / 4, bounds.getMinY());
+            query.requestFocus();
+        }
+    }
+
+    boolean isShowing() {
+        return popup.isShowing();
+    }
+
+    @NotNull
+    TextField getQuery() {
+        return query;
+    }
+
+    @NotNull
+    ListView<Tab> getResults() {
+        return results;
+    }
+
+    private void update() {
+        results.getItems().setAll(registry.findByTitlePrefix(query.getText(), MAX_RESULTS));
+        if (!results.getItems().isEmpty()) {
+            results.getSelectionModel().select(0);
+            results.scrollTo(0);
+        }
+    }
+
+    // selects the chosen tab in its group (building its content if needed)
+    void selectAndHide() {
+        final Tab tab = results.getSelectionModel().getSelectedItem();
+        popup.hide();
+        if (tab != null) {
+            final TabPane tabPane = tab.getTabPane();
+            if (tabPane != null) {
+                tabPane.getSelectionModel().select(tab);
+                tabPane.requestFocus();
+            }
+        }
+    }
+
+}
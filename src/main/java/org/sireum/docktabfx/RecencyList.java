@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// identity-based linked hash set ordered by recency of use. touch, remove, contains and both ends are O(1)
+final class RecencyList<T> implements Iterable<T> {
+
+    private static final class Entry<T> {
+        @Nullable
+        private final T value;
+        private Entry<T> newer;
+        private Entry<T> older;
+
+        private Entry(@Nullable T value) {
+            this.value = value;
+        }
+    }
+
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+
+    // sentinel of the circular list: sentinel.older is the most recent entry, sentinel.newer the least recent one
+    private final Entry<T> sentinel = new Entry<>(null);
+
+    RecencyList() {
+        sentinel.newer = sentinel;
+        sentinel.older = sentinel;
+    }
+
+    // marks value as the most recently used (adding it if needed)
+    void touch(@NotNull T value) {
+        Entry<T> entry = entries.get(value);
+        if (entry == null) {
+            entry = new Entry<>(value);
+            entries.put(value, entry);
+        } else if (entry == sentinel.older) {
+            return;
+        } else {
+            unlink(entry);
+        }
+        entry.older = sentinel.older;
+        entry.newer = sentinel;
+        sentinel.older.newer = entry;
+        sentinel.older = entry;
+    }
+
+    // adds value as the least recently used (unless it is already listed)
+    void addLeastRecent(@NotNull T value) {
+        if (entries.containsKey(value)) {
+            return;
+        }
+        final Entry<T> entry = new Entry<>(value);
+        entries.put(value, entry);
+        entry.newer = sentinel.newer;
+        entry.older = sentinel;
+        sentinel.newer.older = entry;
+        sentinel.newer = entry;
+    }
+
+    boolean remove(@NotNull T value) {
+        final Entry<T> entry = entries.remove(value);
+        if (entry != null) {
+            unlink(entry);
+            return true;
+        }
+        return false;
+    }
+
+    boolean contains(@NotNull T value) {
+        return entries.containsKey(value);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    void clear() {
+        entries.clear();
+        sentinel.newer = sentinel;
+        sentinel.older = sentinel;
+    }
+
+    @Nullable
+    T mostRecent() {
+        return sentinel.older.value;
+    }
+
+    @Nullable
+    T leastRecent() {
+        return sentinel.newer.value;
+    }
+
+    // most recently used first
+    @NotNull
+    @Override
+    public Iterator<T> iterator() {
+        return new EntryIterator(true);
+    }
+
+    // least recently used first
+    @NotNull
+    Iterator<T> leastRecentFirst() {
+        return new EntryIterator(false);
+    }
+
+    private static <T> void unlink(Entry<T> entry) {
+        entry.older.newer = entry.newer;
+        entry.newer.older = entry.older;
+        entry.newer = null;
+        entry.older = null;
+    }
+
+    // iteration tolerates removal of the entry that was last returned (the next entry is looked up in advance)
+    private final class EntryIterator implements Iterator<T> {
+        private final boolean mostRecentFirst;
+        private Entry<T> next;
+
+        private EntryIterator(boolean mostRecentFirst) {
+            this.mostRecentFirst = mostRecentFirst;
+            this.next = mostRecentFirst ? sentinel.older : sentinel.newer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != sentinel;
+        }
+
+        @Override
+        public T next() {
+            if (next == sentinel) {
+                throw new NoSuchElementException();
+            }
+            final Entry<T> current = next;
+            next = mostRecentFirst ? current.older : current.newer;
+            return current.value;
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.scene.Node;
+import javafx.scene.control.Tab;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// tracks which tabs hold live content (ordered by selection recency) and hibernates the least recently used ones
+// whenever a TabHibernationPolicy is exceeded. all updates are O(1), enforcing is O(number of hibernated tabs)
+final class TabHibernation {
+
+    private final RecencyList<Tab> liveTabs = new RecencyList<>();
+
+    // estimated content size of each live tab, only filled while the policy has a size estimator
+    private final Map<Tab, Long> estimates = new IdentityHashMap<>();
+
+    @Nullable
+    private ToLongFunction<Tab> estimator;
+
+    private long liveBytes;
+
+    // set while the hibernator is called, so the changes it makes do not start another round (see enforce(policy))
+    private boolean enforcing = false;
+    private long hibernations;
+    private long restores;
+
+    // marks tab as most recently used if its content is live
+    void track(@NotNull Tab tab) {
+        if (tab.getContent() != null && !LazyContent.isPending(tab)) {
+            liveTabs.touch(tab);
+            if (estimator != null && !estimates.containsKey(tab)) {
+                final long estimate = estimator.applyAsLong(tab);
+                estimates.put(tab, estimate);
+                liveBytes += estimate;
+            }
+        }
+    }
+
+    // stops tracking tab (e.g. because it was closed)
+    void forget(@NotNull Tab tab) {
+        liveTabs.remove(tab);
+        final Long estimate = estimates.remove(tab);
+        if (estimate != null) {
+            liveBytes -= estimate;
+        }
+    }
+
+    void forgetAll() {
+        liveTabs.clear();
+        estimates.clear();
+        liveBytes = 0;
+    }
+
+    // hibernates least recently used unselected tabs until policy is satisfied
+    void enforce(@Nullable TabHibernationPolicy policy) {
+        if (policy == null || enforcing) {
+            return;
+        }
+        updateEstimator(policy.getSizeEstimator());
+
+        // the victims are chosen before any of them is saved, as the hibernator may close, select or hibernate other
+        // tabs (which the iteration would not survive)
+        final List<Tab> victims = new ArrayList<>();
+        long liveCount = liveTabs.size();
+        long bytes = liveBytes;
+        final Iterator<Tab> iterator = liveTabs.leastRecentFirst();
+        while (iterator.hasNext() && (liveCount > policy.getMaxLiveTabs() || bytes > policy.getMemoryBudget())) {
+            final Tab tab = iterator.next();
+            if (!tab.isSelected()) {
+                victims.add(tab);
+                liveCount--;
+                bytes -= estimates.getOrDefault(tab, 0L);
+            }
+        }
+        enforcing = true;
+        try {
+            for (Tab tab : victims) {
+                if (liveTabs.size() <= policy.getMaxLiveTabs() && liveBytes <= policy.getMemoryBudget()) {
+                    return; // e.g. the hibernator closed tabs
+                }
+                if (liveTabs.contains(tab) && !tab.isSelected()) { // still live and unselected after earlier callbacks
+                    hibernate(tab, policy.getHibernator());
+                }
+            }
+        } finally {
+            enforcing = false;
+        }
+    }
+
+    boolean holds(@NotNull Object value) {
+        return estimates.containsKey(value) || value instanceof Tab && liveTabs.contains((Tab) value);
+    }
+
+    long getHibernationCount() {
+        return hibernations;
+    }
+
+    long getRestoreCount() {
+        return restores;
+    }
+
+    private void hibernate(@NotNull Tab tab, @NotNull TabHibernator hibernator) {
+        forget(tab);
+        final Node content = tab.getContent();
+        if (content != null) { // the content may have been cleared by someone else in the meantime
+            hibernator.save(tab, content);
+            LazyContent.install(tab, () -> {
+                restores++;
+                return hibernator.restore(tab);
+            });
+            hibernations++;
+        }
+    }
+
+    // (re-)estimates every live tab whenever a different estimator is used
+    private void updateEstimator(@Nullable ToLongFunction<Tab> newEstimator) {
+        if (newEstimator != estimator) {
+            estimator = newEstimator;
+            estimates.clear();
+            liveBytes = 0;
+            if (newEstimator != null) {
+                for (Tab tab : liveTabs) {
+                    final long estimate = newEstimator.applyAsLong(tab);
+                    estimates.put(tab, estimate);
+                    liveBytes += estimate;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.scene.control.Tab;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+// limits how many tabs of a DockablePane keep their content: while more than maxLiveTabs tabs hold content, or its
+// estimated size exceeds memoryBudget, the content of the least recently selected (unselected) tabs is released via
+// the hibernator, and restored once the tab is selected again
+public final class TabHibernationPolicy {
+
+    private final int maxLiveTabs;
+    private final long memoryBudget;
+
+    @Nullable
+    private final ToLongFunction<Tab> sizeEstimator;
+
+    @NotNull
+    private final TabHibernator hibernator;
+
+    public TabHibernationPolicy(int maxLiveTabs, long memoryBudget, @Nullable ToLongFunction<Tab> sizeEstimator,
+                                @NotNull TabHibernator hibernator) {
+        if (maxLiveTabs < 1) {
+            throw new IllegalArgumentException("maxLiveTabs must be at least 1.");
+        }
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("memoryBudget must not be negative.");
+        }
+        this.maxLiveTabs = maxLiveTabs;
+        this.memoryBudget = memoryBudget;
+        this.sizeEstimator = sizeEstimator;
+        this.hibernator = Objects.requireNonNull(hibernator);
+    }
+
+    @NotNull
+    public static TabHibernationPolicy ofTabCount(int maxLiveTabs, @NotNull TabHibernator hibernator) {
+        return new TabHibernationPolicy(maxLiveTabs, Long.MAX_VALUE, null, hibernator);
+    }
+
+    @NotNull
+    public static TabHibernationPolicy ofMemoryBudget(long memoryBudget, @NotNull ToLongFunction<Tab> sizeEstimator,
+                                                      @NotNull TabHibernator hibernator) {
+        return new TabHibernationPolicy(Integer.MAX_VALUE, memoryBudget, sizeEstimator, hibernator);
+    }
+
+    public int getMaxLiveTabs() {
+        return maxLiveTabs;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    @Nullable
+    public ToLongFunction<Tab> getSizeEstimator() {
+        return sizeEstimator;
+    }
+
+    @NotNull
+    public TabHibernator getHibernator() {
+        return hibernator;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// the flat lists of every open tab and every group (TabPane) of a DockablePane, floating windows included. the skins
+// update them as groups are attached and detached and as tabs are added and removed, so each change to the tree is a
+// single, fine-grained change of the lists (instead of observers walking the tree or listening to every TabPane).
+// the tabs are also kept by recency of selection, for the TabSwitcher
+final class TabLists {
+
+    // indexed, so removals are not a pass over every listed tab
+    private final IndexedList<Tab> tabs = new IndexedList<>();
+    private final IndexedList<TabPane> groups = new IndexedList<>();
+
+    private final ObservableList<Tab> readOnlyTabs = FXCollections.unmodifiableObservableList(tabs);
+    private final ObservableList<TabPane> readOnlyGroups = FXCollections.unmodifiableObservableList(groups);
+
+    // the listed tabs, most recently selected first (tabs that were never selected are added as the least recent)
+    private final RecencyList<Tab> recentTabs = new RecencyList<>();
+
+    @NotNull
+    ObservableList<Tab> getTabs() {
+        return readOnlyTabs;
+    }
+
+    @NotNull
+    ObservableList<TabPane> getGroups() {
+        return readOnlyGroups;
+    }
+
+    @NotNull
+    RecencyList<Tab> getRecentTabs() {
+        return recentTabs;
+    }
+
+    // marks tab as the most recently selected, called on selection (which may come right before the tab is listed,
+    // when adding it to an empty group selects it)
+    void touch(@NotNull Tab tab) {
+        recentTabs.touch(tab);
+    }
+
+    void addGroup(@NotNull TabPane group) {
+        groups.append(Collections.singletonList(group));
+        addTabs(group.getTabs());
+    }
+
+    void removeGroup(@NotNull TabPane group) {
+        groups.remove(Collections.singletonList(group));
+        removeTabs(group.getTabs());
+    }
+
+    // adds the given tabs that are not listed yet (a tab may be added to its new group before it is removed from its
+    // old one, see DockableSkin), as a single change
+    void addTabs(@NotNull List<? extends Tab> added) {
+        for (Tab tab : added) {
+            if (!tabs.contains(tab)) {
+                recentTabs.addLeastRecent(tab);
+            }
+        }
+        tabs.append(added);
+    }
+
+    // removes the given tabs that are listed, as a single change, in O(removed tabs) plus the shift of the tabs after
+    // them (see IndexedList)
+    void removeTabs(@NotNull Collection<? extends Tab> removed) {
+        for (Tab tab : removed) {
+            if (tabs.contains(tab)) {
+                recentTabs.remove(tab);
+            }
+        }
+        tabs.remove(removed);
+    }
+
+    boolean contains(@NotNull Tab tab) {
+        return tabs.contains(tab);
+    }
+
+    // whether value (a tab or group) is listed or kept by recency
+    boolean holds(@NotNull Object value) {
+        return tabs.contains(value) || groups.contains(value)
+                || value instanceof Tab && recentTabs.contains((Tab) value);
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.value.ObservableStringValue;
+import javafx.scene.control.Tab;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// every tab of a DockablePane by id (O(1)) and by title (O(log n) to find the tabs starting with a prefix). tabs are
+// registered when added to one of the pane's groups and unregistered once closed, renaming a tab re-indexes it
+final class TabRegistry {
+
+    private final Map<String, Tab> tabsById = new HashMap<>();
+
+    // keyed by lower case title, then id (so tabs with the same title are kept apart and sorted by title)
+    private final NavigableMap<String, Tab> tabsByTitle = new TreeMap<>();
+
+    private final Map<Tab, Entry> entries = new IdentityHashMap<>();
+
+    void register(@NotNull Tab tab) {
+        if (entries.containsKey(tab)) {
+            return;
+        }
+        final Entry entry = new Entry(tab);
+        entries.put(tab, entry);
+        tabsById.put(entry.id, tab);
+        tabsByTitle.put(entry.titleKey, tab);
+        entry.title.addListener(entry);
+    }
+
+    void unregister(@NotNull Tab tab) {
+        final Entry entry = entries.remove(tab);
+        if (entry != null) {
+            entry.title.removeListener(entry);
+            tabsById.remove(entry.id, tab);
+            tabsByTitle.remove(entry.titleKey, tab);
+        }
+    }
+
+    void clear() {
+        for (Entry entry : entries.values()) {
+            entry.title.removeListener(entry);
+        }
+        entries.clear();
+        tabsById.clear();
+        tabsByTitle.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean holds(@NotNull Object value) {
+        return entries.containsKey(value) || tabsById.containsValue(value) || tabsByTitle.containsValue(value);
+    }
+
+    @Nullable
+    Tab get(@NotNull String id) {
+        return tabsById.get(id);
+    }
+
+    // up to limit tabs whose title starts with prefix (ignoring case), sorted by title
+    @NotNull
+    List<Tab> findByTitlePrefix(@NotNull String prefix, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        final String from = normalize(prefix);
+        final List<Tab> tabs = new ArrayList<>(Math.min(limit, 64));
+        for (Map.Entry<String, Tab> entry : tabsByTitle.tailMap(from, true).entrySet()) {
+            if (!entry.getKey().startsWith(from) || tabs.size() == limit) {
+                break;
+            }
+            tabs.add(entry.getValue());
+        }
+        return tabs;
+    }
+
+    @NotNull
+    private static String normalize(@NotNull String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
+
+    // the indexed keys of a tab, and the listener that re-indexes it when its title changes
+    private final class Entry implements InvalidationListener {
+        private final Tab tab;
+        private final String id;
+        private final ObservableStringValue title;
+        private String titleKey;
+
+        Entry(@NotNull Tab tab) {
+            this.tab = tab;
+            this.id = DockableSkin.tabIdOf(tab);
+            this.title = DockableSkin.titleProperty(tab);
+            this.titleKey = titleKey();
+        }
+
+        @NotNull
+        private String titleKey() {
+            return normalize(DockableSkin.getTitle(tab)) + '\0' + id;
+        }
+
+        @Override
+        public void invalidated(Observable observable) {
+            tabsByTitle.remove(titleKey, tab);
+            titleKey = titleKey();
+            tabsByTitle.put(titleKey, tab);
+        }
+    }
+
+}
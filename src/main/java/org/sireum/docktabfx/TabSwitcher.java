@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// a popup previewing the most recently selected tabs, cycled with Ctrl+Tab (Ctrl+Shift+Tab backwards) and chosen by
+// releasing Ctrl. only the MAX_PREVIEW most recent tabs are listed, so showing, cycling and choosing cost O(MAX_PREVIEW)
+// however many tabs are open (choosing a tab moves it to the front of the recency list in O(1))
+final class TabSwitcher {
+
+    static final int MAX_PREVIEW = 16;
+
+    private final RecencyList<Tab> recentTabs;
+    private final Popup popup = new Popup();
+    private final ListView<Tab> preview = new ListView<>();
+
+    TabSwitcher(@NotNull RecencyList<Tab> recentTabs) {
+        this.recentTabs = recentTabs;
+
+        preview.setCellFactory(it -> new ListCell<>() {
+            @Override
+            protected void updateItem(Tab tab, boolean empty) {
+                super.updateItem(tab, empty);
+                setText(empty || tab == null ? null : DockableSkin.getTitle(tab));
+            }
+        });
+        preview.setOnMouseClicked(event -> selectAndHide());
+
+        preview.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            switch (event.getCode()) {
+                case TAB:
+                    if (event.isShiftDown()) {
+                        previous();
+                    } else {
+                        next();
+                    }
+                    break;
+                case ENTER:
+                    selectAndHide();
+                    break;
+                case ESCAPE:
+                    popup.hide();
+                    break;
+                default:
+                    return;
+            }
+            event.consume();
+        });
+        preview.addEventFilter(KeyEvent.KEY_RELEASED, event -> {
+            if (event.getCode() == KeyCode.CONTROL) {
+                event.consume();
+                selectAndHide();
+            }
+        });
+
+        final VBox root = new VBox(preview);
+        root.getStyleClass().add("tab-switcher");
+        root.setStyle("-fx-background-color: -fx-background; -fx-padding: 4;");
+        popup.getContent().add(root);
+        popup.setAutoHide(true);
+        popup.setOnHidden(event -> preview.getItems().clear()); // so closed tabs are not kept reachable
+    }
+
+    // lists the most recent tabs and preselects the one after (or, backwards, the last listed) the current one, then
+    // shows the popup centered over owner
+    void show(@NotNull Node owner, boolean forward) {
+        final List<Tab> tabs = new ArrayList<>(Math.min(MAX_PREVIEW, recentTabs.size()));
+        for (Tab tab : recentTabs) {
+            if (tabs.size() == MAX_PREVIEW) {
+                break;
+            }
+            tabs.add(tab);
+        }
+        preview.getItems().setAll(tabs);
+        if (tabs.isEmpty()) {
+            return;
+        }
+        preview.getSelectionModel().select(forward ? Math.min(1, tabs.size() - 1) : tabs.size() - 1);
+
+        final Bounds bounds = owner.localToScreen(owner.getBoundsInLocal());
+        if (bounds != null && !popup.isShowing()) {
+            preview.setPrefWidth(Math.max(240, bounds.getWidth() / 3));
+            preview.setPrefHeight(Math.min(tabs.size() * 24 + 2, bounds.getHeight() / 2));
+            popup.show(owner, bounds.getMinX() + bounds.getWidth() / 3, bounds.getMinY() + bounds.getHeight() / 4);
+            preview.requestFocus();
+        }
+    }
+
+    boolean isShowing() {
+        return popup.isShowing();
+    }
+
+    @NotNull
+    ListView<Tab> getPreview() {
+        return preview;
+    }
+
+    void next() {
+        final int size = preview.getItems().size();
+        if (size > 0) {
+            preview.getSelectionModel().select((preview.getSelectionModel().getSelectedIndex() + 1) % size);
+        }
+    }
+
+    void previous() {
+        final int size = preview.getItems().size();
+        if (size > 0) {
+            preview.getSelectionModel().select((preview.getSelectionModel().getSelectedIndex() + size - 1) % size);
+        }
+    }
+
+    // selects the chosen tab in its group (building its content if needed), which makes it the most recent one
+    void selectAndHide() {
+        final Tab tab = preview.getSelectionModel().getSelectedItem();
+        popup.hide();
+        preview.getItems().clear();
+        if (tab != null) {
+            final TabPane tabPane = tab.getTabPane();
+            if (tabPane != null) {
+                tabPane.getSelectionModel().select(tab);
+                tabPane.requestFocus();
+                recentTabs.touch(tab); // it may have been selected already (in another group than the current tab)
+            }
+        }
+    }
+
+}
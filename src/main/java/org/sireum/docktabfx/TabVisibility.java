@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.layout.Region;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// tracks which tabs are visible (selected in a group that is not collapsed to zero size, in a tree that was laid out
+// in a showing window that is not iconified). changes only mark the state as stale; it is recomputed once per pulse, after layout (so groups have their final size), and the difference is
+// reported as a single TabVisibilityEvent. a check is O(number of groups)
+final class TabVisibility {
+
+    private final Consumer<TabVisibilityEvent> listener;
+
+    private Set<Tab> visibleTabs = new LinkedHashSet<>();
+
+    // the scene the pending check was registered with (null if none is pending, or it runs via Platform.runLater)
+    @Nullable
+    private Scene scheduledScene;
+    private boolean scheduled = false;
+
+    @Nullable
+    private Collection<TabPane> tabPanes;
+    @Nullable
+    private Node root;
+
+    private final Runnable check = this::check;
+
+    TabVisibility(@NotNull Consumer<TabVisibilityEvent> listener) {
+        this.listener = listener;
+    }
+
+    // schedules a check of the TabPanes below root (which is the node the skin shows, in scene if any)
+    void invalidate(@NotNull Collection<TabPane> tabPanes, @NotNull Node root, @Nullable Scene scene) {
+        this.tabPanes = tabPanes;
+        this.root = root;
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        // only the scenes of showing windows get pulses
+        if (scene != null && scene.getWindow() != null && scene.getWindow().isShowing()) {
+            scheduledScene = scene;
+            scene.addPostLayoutPulseListener(check);
+            Platform.requestNextPulse();
+        } else {
+            Platform.runLater(check);
+        }
+    }
+
+    boolean isVisible(@NotNull Tab tab) {
+        return visibleTabs.contains(tab);
+    }
+
+    boolean holds(@NotNull Object value) {
+        return visibleTabs.contains(value);
+    }
+
+    void dispose() {
+        if (scheduledScene != null) {
+            scheduledScene.removePostLayoutPulseListener(check);
+            scheduledScene = null;
+        }
+        tabPanes = null;
+        root = null;
+        visibleTabs = new LinkedHashSet<>();
+    }
+
+    private void check() {
+        if (scheduledScene != null) {
+            scheduledScene.removePostLayoutPulseListener(check);
+            scheduledScene = null;
+        }
+        scheduled = false;
+        if (tabPanes == null || root == null) { // disposed
+            return;
+        }
+
+        // nothing is visible before the tree was laid out, or while its window is hidden or iconified
+        final Set<Tab> visible = new LinkedHashSet<>();
+        if (isShowing(root) && isLaidOut(root)) {
+            for (TabPane tabPane : tabPanes) {
+                final Tab selected = tabPane.getSelectionModel().getSelectedItem();
+                if (selected != null && !isCollapsed(tabPane, root)) {
+                    visible.add(selected);
+                }
+            }
+        }
+
+        final List<Tab> shown = new ArrayList<>();
+        for (Tab tab : visible) {
+            if (!visibleTabs.contains(tab)) {
+                shown.add(tab);
+            }
+        }
+        final List<Tab> hidden = new ArrayList<>();
+        for (Tab tab : visibleTabs) {
+            if (!visible.contains(tab)) {
+                hidden.add(tab);
+            }
+        }
+        visibleTabs = visible;
+        if (!shown.isEmpty() || !hidden.isEmpty()) {
+            listener.accept(new TabVisibilityEvent(shown, hidden));
+        }
+    }
+
+    private static boolean isShowing(@NotNull Node node) {
+        final Scene scene = node.getScene();
+        final Window window = scene == null ? null : scene.getWindow();
+        return window != null && window.isShowing() && !(window instanceof Stage && ((Stage) window).isIconified());
+    }
+
+    private static boolean isLaidOut(@NotNull Node node) {
+        return !(node instanceof Region) || (((Region) node).getWidth() > 0 && ((Region) node).getHeight() > 0);
+    }
+
+    // whether node, or any of its ancestors below root, has no area (a SplitPane clips its items to the space between
+    // its dividers, so the items' wrappers are checked as well as the items)
+    private static boolean isCollapsed(@NotNull Node node, @NotNull Node root) {
+        for (Node current = node; current != null && current != root; current = current.getParent()) {
+            if (!isLaidOut(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
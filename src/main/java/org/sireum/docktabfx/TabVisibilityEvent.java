@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.scene.control.Tab;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+// fired on a DockablePane (at most once per pulse, after layout) when tabs became visible or stopped being visible, so
+// apps can pause the feeds, animations and timers of content nobody sees. a tab is visible while it is selected in a
+// group of the pane (or of its floating windows) that is not collapsed to zero size, e.g. by a SplitPane divider, and
+// whose window is showing and not iconified. tabs of a pane that was not laid out yet, or left its scene, are hidden
+public final class TabVisibilityEvent extends Event {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final EventType<TabVisibilityEvent> TAB_VISIBILITY_CHANGED =
+            new EventType<>(Event.ANY, "TAB_VISIBILITY_CHANGED");
+
+    @NotNull
+    private final List<Tab> shown;
+    @NotNull
+    private final List<Tab> hidden;
+
+    TabVisibilityEvent(@NotNull List<Tab> shown, @NotNull List<Tab> hidden) {
+        super(TAB_VISIBILITY_CHANGED);
+        this.shown = Collections.unmodifiableList(shown);
+        this.hidden = Collections.unmodifiableList(hidden);
+    }
+
+    // tabs that became visible since the previous event
+    @NotNull
+    public List<Tab> getShown() {
+        return shown;
+    }
+
+    // tabs that are no longer visible (including closed ones and those moved to a collapsed or unselected place)
+    @NotNull
+    public List<Tab> getHidden() {
+        return hidden;
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
+import javafx.css.PseudoClass;
+import javafx.geometry.Bounds;
+import javafx.geometry.Orientation;
+import javafx.geometry.Side;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SingleSelectionModel;
+import javafx.scene.control.SkinBase;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Popup;
+import javafx.util.Builder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// a TabPane skin for groups with thousands of tabs (use createTabPaneFactory() as a DockablePane's tabPaneFactory).
+// tab headers are cells of a horizontal ListView, so only the visible headers exist (recycled while scrolling), and
+// the overflow button at the end of the header strip lists every tab. a header shows the tab's title as its own text,
+// as the tab's graphic is a single node the recycled headers can't share. headers start drags between groups, reorder
+// tabs with the REORDER drag policy and request the tab's context menu like the default skin's, but they are always on
+// top and tabs can't be closed from their header
+public class VirtualizedTabPaneSkin extends SkinBase<TabPane> {
+
+    private static final PseudoClass DROP_TARGET = PseudoClass.getPseudoClass("drop-target");
+    private static final double HEADER_HEIGHT = 28;
+
+    private final ListView<Tab> headers = new ListView<>();
+    private final Button overflowButton = new Button("\u25BE");
+    private final StackPane contentArea = new StackPane();
+
+    // created when the overflow button is first pressed
+    @Nullable
+    private Popup overflowPopup;
+
+    // the tab whose content is shown, and the listener that follows its (possibly lazily built) content
+    @Nullable
+    private Tab shownTab;
+    private final InvalidationListener contentListener = observable -> showContent();
+
+    // the tab whose header is being dragged, and the header it is over
+    @Nullable
+    private Tab draggedTab;
+    @Nullable
+    private ListCell<Tab> dropTarget;
+
+    private boolean updatingSelection = false;
+
+    // the listeners this skin adds to its TabPane (and the selection model they were added to), removed on dispose
+    private final SingleSelectionModel<Tab> selectionModel;
+    private final InvalidationListener selectionListener = observable -> syncSelection();
+    private final ListChangeListener<Tab> tabsListener = c -> syncSelection();
+
+    public VirtualizedTabPaneSkin(@NotNull TabPane tabPane) {
+        super(tabPane);
+
+        headers.setOrientation(Orientation.HORIZONTAL);
+        headers.setItems(tabPane.getTabs());
+        headers.setCellFactory(it -> new HeaderCell());
+        headers.setPrefHeight(HEADER_HEIGHT);
+        headers.setMinHeight(HEADER_HEIGHT);
+        headers.setMaxHeight(HEADER_HEIGHT);
+        headers.getStyleClass().add("virtualized-tab-headers");
+        HBox.setHgrow(headers, Priority.ALWAYS);
+
+        overflowButton.getStyleClass().add("virtualized-tab-overflow");
+        overflowButton.setFocusTraversable(false);
+        overflowButton.setOnAction(event -> showOverflow());
+
+        contentArea.getStyleClass().add("tab-content-area");
+
+        final BorderPane layout = new BorderPane(contentArea);
+        layout.setTop(new HBox(headers, overflowButton));
+        getChildren().add(layout);
+
+        // the selected tab is the selected header, both ways
+        selectionModel = tabPane.getSelectionModel();
+        selectionModel.selectedItemProperty().addListener(selectionListener);
+        headers.getSelectionModel().selectedItemProperty().addListener((observable, oldTab, newTab) -> {
+            if (!updatingSelection && newTab != null) {
+                tabPane.getSelectionModel().select(newTab);
+            }
+        });
+        tabPane.getTabs().addListener(tabsListener);
+        syncSelection();
+
+        headers.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::onDragged);
+        headers.addEventHandler(MouseEvent.MOUSE_RELEASED, this::onReleased);
+    }
+
+    // a TabPane factory for DockablePane whose TabPanes (set up like the default ones) use this skin
+    @NotNull
+    public static Builder<TabPane> createTabPaneFactory() {
+        return () -> {
+            final TabPane tabPane = new TabPane();
+            tabPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+            tabPane.setTabDragPolicy(TabPane.TabDragPolicy.REORDER);
+            tabPane.setSide(Side.TOP);
+            tabPane.setSkin(new VirtualizedTabPaneSkin(tabPane));
+            return tabPane;
+        };
+    }
+
+    @NotNull
+    ListView<Tab> getHeaders() {
+        return headers;
+    }
+
+    @NotNull
+    StackPane getContentArea() {
+        return contentArea;
+    }
+
+    @Override
+    public void dispose() {
+        final TabPane tabPane = getSkinnable();
+        if (tabPane != null) {
+            selectionModel.selectedItemProperty().removeListener(selectionListener);
+            tabPane.getTabs().removeListener(tabsListener);
+        }
+        if (shownTab != null) {
+            shownTab.contentProperty().removeListener(contentListener);
+            shownTab = null;
+        }
+        headers.setItems(null);
+        super.dispose();
+    }
+
+    private void syncSelection() {
+        final TabPane tabPane = getSkinnable();
+        if (tabPane == null) {
+            return;
+        }
+        final Tab selected = tabPane.getSelectionModel().getSelectedItem();
+        if (headers.getSelectionModel().getSelectedItem() != selected) {
+            updatingSelection = true;
+            try {
+                if (selected == null) {
+                    headers.getSelectionModel().clearSelection();
+                } else {
+                    headers.getSelectionModel().select(selected);
+                    headers.scrollTo(selected);
+                }
+            } finally {
+                updatingSelection = false;
+            }
+        }
+
+        if (shownTab != selected) {
+            if (shownTab != null) {
+                shownTab.contentProperty().removeListener(contentListener);
+            }
+            shownTab = selected;
+            if (selected != null) {
+                selected.contentProperty().addListener(contentListener);
+            }
+        }
+        showContent();
+    }
+
+    private void showContent() {
+        final Node content = shownTab == null ? null : shownTab.getContent();
+        if (content == null) {
+            contentArea.getChildren().clear();
+        } else if (contentArea.getChildren().size() != 1 || contentArea.getChildren().get(0) != content) {
+            contentArea.getChildren().setAll(content);
+        }
+    }
+
+    // moves tab to index (among the tabs of this TabPane) and selects it
+    void moveTab(@NotNull Tab tab, int index) {
+        final TabPane tabPane = getSkinnable();
+        final int from = tabPane.getTabs().indexOf(tab);
+        if (from < 0 || from == index || index < 0 || index >= tabPane.getTabs().size()) {
+            return;
+        }
+        tabPane.getTabs().remove(from);
+        tabPane.getTabs().add(index, tab);
+        tabPane.getSelectionModel().select(tab);
+    }
+
+    private void onDragged(MouseEvent event) {
+        if (draggedTab == null || getSkinnable().getTabDragPolicy() != TabPane.TabDragPolicy.REORDER) {
+            return;
+        }
+        setDropTarget(findCell(event.getPickResult().getIntersectedNode()));
+    }
+
+    private void onReleased(MouseEvent event) {
+        final Tab tab = draggedTab;
+        final ListCell<Tab> target = dropTarget;
+        draggedTab = null;
+        setDropTarget(null);
+        // drops on other groups were already handled by DockableSkin (which consumes the event)
+        if (tab != null && target != null && target.getItem() != null && !event.isConsumed()) {
+            moveTab(tab, target.getIndex());
+        }
+    }
+
+    private void setDropTarget(@Nullable ListCell<Tab> cell) {
+        if (dropTarget != cell) {
+            if (dropTarget != null) {
+                dropTarget.pseudoClassStateChanged(DROP_TARGET, false);
+            }
+            dropTarget = cell != null && cell.getListView() == headers ? cell : null;
+            if (dropTarget != null) {
+                dropTarget.pseudoClassStateChanged(DROP_TARGET, true);
+            }
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static ListCell<Tab> findCell(@Nullable Node node) {
+        while (node != null && !(node instanceof HeaderCell)) {
+            node = node.getParent();
+        }
+        return (ListCell<Tab>) node;
+    }
+
+    private void showOverflow() {
+        if (overflowPopup == null) {
+            final ListView<Tab> list = new ListView<>(getSkinnable().getTabs());
+            list.setCellFactory(it -> new ListCell<>() {
+                @Override
+                protected void updateItem(Tab tab, boolean empty) {
+                    super.updateItem(tab, empty);
+                    setText(empty || tab == null ? null : DockableSkin.getTitle(tab));
+                }
+            });
+            list.setOnMouseClicked(event -> {
+                final Tab tab = list.getSelectionModel().getSelectedItem();
+                if (tab != null) {
+                    getSkinnable().getSelectionModel().select(tab);
+                }
+                overflowPopup.hide();
+            });
+            list.setPrefHeight(320);
+            overflowPopup = new Popup();
+            overflowPopup.setAutoHide(true);
+            overflowPopup.getContent().add(list);
+        }
+        final ListView<?> list = (ListView<?>) overflowPopup.getContent().get(0);
+        list.getSelectionModel().clearSelection();
+        final Bounds bounds = overflowButton.localToScreen(overflowButton.getBoundsInLocal());
+        if (bounds != null) {
+            overflowPopup.show(overflowButton, bounds.getMinX(), bounds.getMaxY());
+        }
+    }
+
+    // a recycled tab header
+    private final class HeaderCell extends ListCell<Tab> {
+
+        HeaderCell() {
+            getStyleClass().add("tab");
+            addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+                if (event.getButton() == MouseButton.PRIMARY && getItem() != null) {
+                    draggedTab = getItem();
+                    DockableSkin.beginDrag(getItem());
+                }
+            });
+            setOnContextMenuRequested(event -> {
+                final Tab tab = getItem();
+                // DockableSkin installs the tab's context menu while the request passes through the TabPane
+                if (tab != null && tab.getContextMenu() != null) {
+                    tab.getContextMenu().show(this, event.getScreenX(), event.getScreenY());
+                    event.consume();
+                }
+            });
+        }
+
+        @Override
+        protected void updateItem(Tab tab, boolean empty) {
+            super.updateItem(tab, empty);
+            textProperty().unbind();
+            if (empty || tab == null) {
+                getProperties().remove(Tab.class);
+                setText(null);
+            } else {
+                // where DockableSkin looks up the tab of a header (like TabPaneSkin's headers)
+                getProperties().put(Tab.class, tab);
+                textProperty().bind(DockableSkin.titleProperty(tab));
+            }
+        }
+    }
+
+}
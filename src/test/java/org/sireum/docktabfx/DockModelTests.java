@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.geometry.Orientation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link DockModel} is pure data, so these tests do not start the JavaFX toolkit.
+ */
+public class DockModelTests {
+
+    @Test
+    void add_and_split_test() {
+        final DockModel model = new DockModel();
+        model.addTab("tab1", "Tab 1", null);
+        model.addTab("tab2", "Tab 2", null);
+        model.addTab("tab3", "Tab 3", null);
+        assertEquals("root[H](group-1{tab1*, tab2, tab3})", model.toString());
+
+        final DockModel.Group group2 = model.splitTab("tab2", Orientation.VERTICAL);
+        assertNotNull(group2);
+        assertEquals("root[H](group-1{tab1*, tab3}, group-2{tab2*})", model.toString());
+
+        // the parent holds two items now, so the next split wraps group-1 in a new split
+        model.splitTab("tab3", Orientation.HORIZONTAL);
+        assertEquals("root[H](split-3[V](group-1{tab1*}, group-4{tab3*}), group-2{tab2*})", model.toString());
+        assertNull(model.splitTab("tab1", Orientation.HORIZONTAL)); // nothing left to split
+
+        // splitting in the orientation of the enclosing split adds a group to it instead of nesting a split
+        model.addTab("tab4", "Tab 4", "group-4");
+        model.splitTab("tab4", Orientation.HORIZONTAL);
+        assertEquals("root[H](split-3[V](group-1{tab1*}, group-4{tab3*}, group-5{tab4*}), group-2{tab2*})",
+                model.toString());
+
+        // a root left with a single split takes over its items
+        model.removeGroup("group-2");
+        assertEquals("root[V](group-1{tab1*}, group-4{tab3*}, group-5{tab4*})", model.toString());
+        model.validate();
+    }
+
+    @Test
+    void remove_prunes_empty_items_test() {
+        final DockModel model = new DockModel();
+        model.addTab("tab1", "Tab 1", null);
+        model.addTab("tab2", "Tab 2", null);
+        model.addTab("tab3", "Tab 3", null);
+        model.splitTab("tab2", Orientation.VERTICAL);
+        model.splitTab("tab3", Orientation.HORIZONTAL);
+
+        // like the skin, a split left with a single item is replaced by it
+        model.removeTab("tab3");
+        assertEquals("root[H](group-1{tab1*}, group-2{tab2*})", model.toString());
+        assertNull(model.getItem("split-3"));
+        model.removeGroup("group-1");
+        assertEquals("root[H](group-2{tab2*})", model.toString());
+        model.removeAll();
+        assertEquals("root[H]()", model.toString());
+        assertEquals(0, model.getTabCount());
+        model.validate();
+    }
+
+    @Test
+    void copy_is_independent_test() {
+        final DockModel model = new DockModel();
+        model.addTab("tab1", "Tab 1", null);
+        model.addTab("tab2", "Tab 2", null);
+        model.splitTab("tab2", Orientation.VERTICAL);
+        model.setDividerPositions(DockModel.ROOT_ID, 0.25);
+
+        final DockModel copy = model.copy();
+        assertEquals(model.toString(), copy.toString());
+        assertArrayEquals(new double[]{0.25}, copy.getRoot().getDividerPositions());
+
+        copy.moveTab("tab2", "group-1", 0);
+        assertEquals("root[H](group-1{tab2, tab1*})", copy.toString());
+        assertEquals("root[H](group-1{tab1*}, group-2{tab2*})", model.toString());
+    }
+
+    @Test
+    void validate_rejects_invalid_layouts_test() {
+        final DockModel model = new DockModel();
+        model.addTab("tab1", "Tab 1", null);
+        model.addTab("tab2", "Tab 2", null);
+        model.splitTab("tab2", Orientation.VERTICAL);
+        assertThrows(IllegalArgumentException.class, () -> model.setDividerPositions(DockModel.ROOT_ID, 0.2, 0.4));
+        assertThrows(IllegalArgumentException.class, () -> model.addTab("tab1", "Tab 1", null));
+        model.setDividerPositions(DockModel.ROOT_ID, 1.5);
+        assertThrows(IllegalStateException.class, model::validate);
+    }
+
+    @Test
+    void layout_codec_round_trip_test(@TempDir Path directory) throws IOException {
+        final DockModel model = createLargeModel(10_000, 48);
+        final Path file = directory.resolve("layout.bin");
+        DockLayoutCodec.write(model, file);
+        final DockModel restored = DockLayoutCodec.read(file);
+
+        assertEquals(model.toString(), restored.toString());
+        assertEquals(10_000, restored.getTabCount());
+        assertEquals(model.getTitle("tab1234"), restored.getTitle("tab1234"));
+        final List<DockModel.Group> groups = model.getGroups();
+        final List<DockModel.Group> restoredGroups = restored.getGroups();
+        for (int i = 0; i < groups.size(); i++) {
+            final DockModel.Split split = groups.get(i).getParent();
+            final DockModel.Split restoredSplit = restoredGroups.get(i).getParent();
+            assertEquals(split.getOrientation(), restoredSplit.getOrientation());
+            assertArrayEquals(split.getDividerPositions(), restoredSplit.getDividerPositions());
+        }
+    }
+
+    @Test
+    void floating_windows_test(@TempDir Path directory) throws IOException {
+        final DockModel model = new DockModel();
+        model.addTab("tab1", "Tab 1", null);
+        model.addTab("tab2", "Tab 2", null);
+        model.addTab("tab3", "Tab 3", null);
+        model.splitTab("tab3", Orientation.VERTICAL);
+
+        final DockModel.Window window = model.undockTab("tab2", 10, 20, 300, 200);
+        assertEquals("root[H](group-1{tab1*}, group-2{tab3*}) window-3[H](group-4{tab2*})", model.toString());
+        assertSame(window, model.getWindowOf(model.getGroupOf("tab2")));
+        assertNull(model.getWindowOf(model.getGroupOf("tab1")));
+
+        // the group keeps its id, and the emptied main tree is pruned
+        model.undockGroup("group-2", 40, 50, 300, 200);
+        assertEquals("root[H](group-1{tab1*}) window-3[H](group-4{tab2*}) window-5[H](group-2{tab3*})",
+                model.toString());
+        model.validate();
+
+        // the layout (bounds included) survives the codec
+        final Path file = directory.resolve("layout.bin");
+        DockLayoutCodec.write(model, file);
+        final DockModel restored = DockLayoutCodec.read(file);
+        assertEquals(model.toString(), restored.toString());
+        assertEquals(300, restored.getWindow("window-5").getWidth());
+        assertEquals(50, restored.getWindow("window-5").getY());
+        assertEquals(model.toString(), model.copy().toString());
+
+        // redocking the last tab of a window closes it (the tab is selected, as in the pane)
+        model.redockTab("tab2");
+        assertEquals("root[H](group-1{tab1, tab2*}) window-5[H](group-2{tab3*})", model.toString());
+        assertNull(model.getItem("window-3"));
+        model.removeWindow("window-5");
+        assertEquals("root[H](group-1{tab1, tab2*})", model.toString());
+        assertFalse(model.containsTab("tab3"));
+        model.validate();
+    }
+
+    @Test
+    void layout_codec_rejects_foreign_data_test(@TempDir Path directory) throws IOException {
+        final Path file = directory.resolve("layout.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7});
+        assertThrows(IOException.class, () -> DockLayoutCodec.read(file));
+
+        // a truncated layout is reported as corrupt rather than failing with a runtime exception
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DockLayoutCodec.write(createLargeModel(100, 4), out);
+        final byte[] bytes = Arrays.copyOf(out.toByteArray(), out.size() / 2);
+        assertThrows(IOException.class, () -> DockLayoutCodec.read(ByteBuffer.wrap(bytes)));
+
+        // a single group: magic, version, root id, orientation, ..., divider count, window count
+        final DockModel model = new DockModel();
+        model.addTab("tab1", "Tab 1", null);
+        out.reset();
+        DockLayoutCodec.write(model, out);
+        final byte[] valid = out.toByteArray();
+        assertEquals(model.toString(), DockLayoutCodec.read(ByteBuffer.wrap(valid)).toString());
+
+        final byte[] badOrientation = valid.clone();
+        badOrientation[6 + 1 + DockModel.ROOT_ID.length()] = 7;
+        assertThrows(IOException.class, () -> DockLayoutCodec.read(ByteBuffer.wrap(badOrientation)));
+
+        // a negative and an oversized divider count are rejected before allocating
+        for (byte[] count : new byte[][]{{-1, -1, -1, -1, 0x0F}, {-1, -1, -1, 0x7F}}) {
+            final ByteArrayOutputStream corrupt = new ByteArrayOutputStream();
+            corrupt.write(valid, 0, valid.length - 2);
+            corrupt.write(count, 0, count.length);
+            corrupt.write(0);
+            assertThrows(IOException.class, () -> DockLayoutCodec.read(ByteBuffer.wrap(corrupt.toByteArray())));
+        }
+
+        // splits nested far too deeply are rejected instead of overflowing the stack
+        final ByteArrayOutputStream nested = new ByteArrayOutputStream();
+        nested.write(valid, 0, 6 + 1 + DockModel.ROOT_ID.length());
+        for (int i = 0; i < 100_000; i++) {
+            final byte[] id = Integer.toString(i).getBytes(StandardCharsets.UTF_8);
+            nested.write(new byte[]{(byte) (i % 2), 1, 1, (byte) id.length}, 0, 4); // orientation, 1 item, SPLIT, id
+            nested.write(id, 0, id.length);
+        }
+        final IOException error = assertThrows(IOException.class,
+                () -> DockLayoutCodec.read(ByteBuffer.wrap(nested.toByteArray())));
+        assertTrue(error.getMessage().contains("nested too deeply"), error.getMessage());
+    }
+
+    // a layout with tabCount tabs spread over splits + 1 groups, each split with custom divider positions
+    static DockModel createLargeModel(int tabCount, int splits) {
+        final Random random = new Random(11);
+        final DockModel model = new DockModel();
+        final List<String> tabIds = new ArrayList<>();
+        for (int i = 0; i < tabCount; i++) {
+            final String tabId = "tab" + i;
+            model.addTab(tabId, "Tab " + i + " \u00e9", null);
+            tabIds.add(tabId);
+        }
+        for (int i = 0; i < splits; i++) {
+            final String tabId = tabIds.get(random.nextInt(tabIds.size()));
+            final DockModel.Group group = model.splitTab(tabId, i % 2 == 0 ? Orientation.HORIZONTAL : Orientation.VERTICAL);
+            if (group != null) {
+                final DockModel.Split parent = group.getParent();
+                final int dividers = parent.getItems().size() - 1;
+                final double[] positions = new double[dividers];
+                for (int d = 0; d < dividers; d++) {
+                    positions[d] = (d + 1.0) / (dividers + 1.0);
+                }
+                model.setDividerPositions(parent.getId(), positions);
+            }
+        }
+        for (String tabId : tabIds.subList(0, 50)) {
+            model.moveTab(tabId, model.getGroups().get(random.nextInt(model.getGroups().size())).getId(), 0);
+        }
+        model.validate();
+        return model;
+    }
+
+    @Test
+    void large_random_layout_stays_valid_test() {
+        final Random random = new Random(7);
+        final DockModel model = new DockModel();
+        final List<String> tabIds = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            final int operation = tabIds.isEmpty() ? 0 : random.nextInt(100);
+            if (operation < 60) {
+                final String tabId = "tab" + i;
+                model.addTab(tabId, tabId, null);
+                tabIds.add(tabId);
+            } else if (operation < 65) {
+                final String tabId = tabIds.get(random.nextInt(tabIds.size()));
+                model.splitTab(tabId, random.nextBoolean() ? Orientation.HORIZONTAL : Orientation.VERTICAL);
+            } else {
+                model.removeTab(tabIds.remove(random.nextInt(tabIds.size())));
+            }
+        }
+        model.validate();
+        assertEquals(tabIds.size(), model.getTabCount());
+    }
+
+}
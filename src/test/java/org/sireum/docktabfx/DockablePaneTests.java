@@ -3,7 +3,10 @@ package org.sireum.docktabfx;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Bounds;
+import javafx.geometry.Orientation;
 import javafx.scene.Scene;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.SplitPane;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TextArea;
@@ -15,13 +18,18 @@ import org.testfx.api.FxRobot;
 import org.testfx.framework.junit5.ApplicationExtension;
 import org.testfx.framework.junit5.Start;
 import org.testfx.framework.junit5.Stop;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(ApplicationExtension.class)
 public class DockablePaneTests {
 
-    // menu item ids for the the default tab context menu. see: {@link DockableSkin#createDefaultContextMenu(Tab)}
+    // menu item ids for the the default tab context menu. see: {@link DockableSkin#getDefaultContextMenu()}
     public static final int CLOSE_TAB_MENU_ITEM = 0;
     public static final int CLOSE_OTHERS_MENU_ITEM = 1;
     public static final int CLOSE_GROUP_MENU_ITEM = 2;
@@ -315,16 +323,151 @@ public class DockablePaneTests {
         assertNotSame(tab2.getTabPane(), tab3.getTabPane());
     }
 
-    private static void clickTabMenuItem(FxRobot robot, Scene scene, Tab tab, int menuItem) {
+    @Test
+    void drop_zones_follow_dividers_test(FxRobot robot) {
+        robot.interact(() -> {
+            stage.setWidth(800);
+            stage.setHeight(600);
+            pane.splitTab(tab1, Orientation.VERTICAL);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+
+        final DockableSkin skin = pane.ensureSkin();
+        final SplitPane root = (SplitPane) skin.getNode();
+        final double x = pane.getWidth() * 0.4;
+        final double y = pane.getHeight() * 0.5;
+        robot.interact(() -> {
+            assertEquals(Orientation.HORIZONTAL, root.getOrientation());
+            assertSame(root.getItems().get(0), skin.findDropZone(x, y).target);
+            root.setDividerPositions(0.2);
+        });
+        // the pulse lays out the moved divider, after the index was built for the previous layout
+        WaitForAsyncUtils.waitForFxEvents();
+        robot.interact(() -> assertSame(root.getItems().get(1), skin.findDropZone(x, y).target));
+        robot.interact(() -> root.setDividerPositions(0.6));
+        WaitForAsyncUtils.waitForFxEvents();
+        robot.interact(() -> assertSame(root.getItems().get(0), skin.findDropZone(x, y).target));
+    }
+
+    @Test
+    void tab_visibility_events_test(FxRobot robot) {
+        final List<TabVisibilityEvent> events = new ArrayList<>();
+        robot.interact(() -> pane.setOnTabVisibilityChanged(events::add));
+        WaitForAsyncUtils.waitForFxEvents();
+        assertTrue(pane.isTabVisible(tab1));
+        assertFalse(pane.isTabVisible(tab2));
+
+        // every change made before the check is reported at once
+        final Tab[] tab4 = new Tab[1];
+        robot.interact(() -> {
+            tab2.getTabPane().getSelectionModel().select(tab2);
+            tab4[0] = pane.addTab("tab4", new TextArea());
+            tab4[0].getTabPane().getSelectionModel().select(tab4[0]);
+            pane.removeTab(tab2);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(1, events.size());
+        assertEquals(List.of(tab4[0]), events.get(0).getShown());
+        assertEquals(List.of(tab1), events.get(0).getHidden());
+
+        // tabs of floating windows are reported by the pane they were undocked from
+        robot.interact(() -> pane.undockTab(tab4[0]));
+        WaitForAsyncUtils.waitForFxEvents();
+        assertTrue(pane.isTabVisible(tab4[0]));
+        assertEquals(List.of(tab4[0]), events.stream().skip(1).flatMap(it -> it.getHidden().stream())
+                .collect(Collectors.toList()));
+        assertTrue(events.stream().skip(1).anyMatch(it -> it.getShown().contains(tab4[0])));
+        robot.interact(() -> pane.redockTab(tab4[0]));
+        WaitForAsyncUtils.waitForFxEvents();
+
+        // nothing is visible while the window is hidden
+        final Tab selected = tab1.getTabPane().getSelectionModel().getSelectedItem();
+        assertTrue(pane.isTabVisible(selected));
+        events.clear();
+        robot.interact(stage::hide);
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(1, events.size());
+        assertEquals(List.of(selected), events.get(0).getHidden());
+        assertFalse(pane.isTabVisible(selected));
+        robot.interact(stage::show);
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(List.of(selected), events.get(1).getShown());
+
+        // or while the pane is out of the scene
+        robot.interact(() -> scene.setRoot(new TextArea()));
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(List.of(selected), events.get(2).getHidden());
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    void dividers_collapse_groups_test(FxRobot robot) {
+        final List<TabVisibilityEvent> events = new ArrayList<>();
+        robot.interact(() -> {
+            stage.setWidth(800);
+            stage.setHeight(600);
+            pane.splitTab(tab1, Orientation.VERTICAL);
+            pane.setOnTabVisibilityChanged(events::add);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+
+        final SplitPane root = (SplitPane) pane.ensureSkin().getNode();
+        robot.interact(() -> {
+            assertSame(root.getItems().get(1), tab1.getTabPane());
+            assertTrue(pane.isTabVisible(tab1));
+            events.clear();
+            root.setDividerPositions(1);
+        });
+        // the pulse lays out the moved divider, after the visibility was checked for the previous layout
+        WaitForAsyncUtils.waitForFxEvents();
+        robot.interact(() -> {
+            assertFalse(pane.isTabVisible(tab1));
+            assertEquals(1, events.size());
+            assertEquals(List.of(tab1), events.get(0).getHidden());
+            assertTrue(events.get(0).getShown().isEmpty());
+            root.setDividerPositions(0.5);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        robot.interact(() -> {
+            assertTrue(pane.isTabVisible(tab1));
+            assertEquals(2, events.size());
+            assertEquals(List.of(tab1), events.get(1).getShown());
+        });
+    }
+
+    @Test
+    void focus_activates_groups_test(FxRobot robot) {
+        robot.interact(() -> {
+            pane.splitTab(tab1, Orientation.VERTICAL);
+            pane.setTabTargetPolicy(TabTargetPolicy.ACTIVE_GROUP);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertSame(tab1.getTabPane(), pane.getActiveGroup());
+
+        // moving the focus into another group (e.g. with the keyboard) activates it, without any click
+        robot.interact(() -> tab2.getContent().requestFocus());
+        WaitForAsyncUtils.waitForFxEvents();
+        assertSame(tab2.getContent(), scene.getFocusOwner());
+        assertSame(tab2.getTabPane(), pane.getActiveGroup());
+        robot.interact(() -> assertSame(tab2.getTabPane(), pane.addTab("tab4", new TextArea()).getTabPane()));
+
+        robot.interact(() -> tab1.getContent().requestFocus());
+        WaitForAsyncUtils.waitForFxEvents();
+        assertSame(tab1.getTabPane(), pane.getActiveGroup());
+    }
+
+    private void clickTabMenuItem(FxRobot robot, Scene scene, Tab tab, int menuItem) {
         final Bounds bounds = robot.bounds(tab.getGraphic()).query();
         robot.moveTo(tab.getGraphic());
         robot.interact(() -> {
-            tab.getContextMenu().show(scene.getWindow(), bounds.getCenterX(), bounds.getCenterY());
-            final EventHandler<ActionEvent> action = tab.getContextMenu().getItems().get(menuItem).getOnAction();
+            // context menus are resolved on demand (normally by the CONTEXT_MENU_REQUESTED of the tab header)
+            final ContextMenu contextMenu = pane.ensureSkin().requestContextMenu(tab);
+            contextMenu.show(scene.getWindow(), bounds.getCenterX(), bounds.getCenterY());
+            final EventHandler<ActionEvent> action = contextMenu.getItems().get(menuItem).getOnAction();
             if (action != null) {
                 action.handle(new ActionEvent());
             }
-            tab.getContextMenu().hide();
+            contextMenu.hide();
         });
     }
 
@@ -0,0 +1,1259 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.collections.ListChangeListener;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Orientation;
+import javafx.geometry.Side;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.skin.SplitPaneSkin;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.stage.Stage;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.testfx.api.FxRobot;
+import org.testfx.framework.junit5.ApplicationExtension;
+import org.testfx.framework.junit5.Start;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link DockableSkin} internals that do not need the pane to be shown.
+ */
+@ExtendWith(ApplicationExtension.class)
+public class DockableSkinTests {
+
+    private DockablePane pane;
+
+    @Start
+    private void start(@NotNull Stage stage) {
+        this.pane = new DockablePane();
+    }
+
+    @Test
+    void container_index_matches_tree_walk_test(FxRobot robot) {
+        final Random random = new Random(42);
+        final List<Tab> tabs = new ArrayList<>();
+        final Set<Node> everSeen = new HashSet<>();
+
+        robot.interact(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                randomOperation(random, tabs);
+                tabs.removeIf(tab -> tab.getTabPane() == null);
+                assertIndexMatchesTreeWalk(everSeen);
+            }
+        });
+    }
+
+    @Test
+    void batch_defers_cleanup_test(FxRobot robot) {
+        robot.interact(() -> {
+            final List<Tab> tabs = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                tabs.add(pane.addTab("tab" + i, new Region()));
+            }
+            for (int i = 1; i < 30; i++) {
+                pane.splitTab(tabs.get(i * 10), i % 2 == 0 ? Orientation.VERTICAL : Orientation.HORIZONTAL);
+            }
+            final DockableSkin skin = pane.ensureSkin();
+            final TabPane target = tabs.get(0).getTabPane();
+            final int groups = skin.getAttachedTabPanes().size();
+
+            // gather every tab into one group. emptied groups (and splits) stay until the batch ends
+            pane.batch(dockable -> {
+                for (Tab tab : tabs) {
+                    if (tab.getTabPane() != target) {
+                        dockable.removeTab(tab);
+                        target.getTabs().add(tab);
+                    }
+                }
+                assertEquals(groups, skin.getAttachedTabPanes().size());
+            });
+
+            assertEquals(Set.of(target), skin.getAttachedTabPanes());
+            assertEquals(300, target.getTabs().size());
+            assertIndexMatchesTreeWalk(new HashSet<>());
+            assertEquals(1, ((SplitPane) skin.getNode()).getItems().size());
+
+            // closing the others is a single change, whatever the position of the kept tab
+            final int[] changes = {0};
+            target.getTabs().addListener((ListChangeListener<? super Tab>) c -> changes[0]++);
+            pane.removeAllOtherTabsInGroup(tabs.get(150));
+            assertEquals(1, changes[0]);
+            assertEquals(List.of(tabs.get(150)), target.getTabs());
+
+            // the root TabPane is resolved again once the batch ends, so new tabs join a group that is still shown
+            pane.batch(dockable -> {
+                dockable.removeTab(tabs.get(150));
+                assertEquals(Set.of(target), skin.getAttachedTabPanes());
+            });
+            assertTrue(skin.getAttachedTabPanes().isEmpty());
+            final Tab added = pane.addTab("added", new Region());
+            assertNotNull(added.getTabPane());
+            assertIndexMatchesTreeWalk(new HashSet<>());
+        });
+    }
+
+    @Test
+    void async_mutations_test(FxRobot robot) throws Exception {
+        final Tab first = WaitForAsyncUtils.asyncFx(() -> pane.addTab("first", new Region())).get();
+        final List<Integer> addedPerChange = new ArrayList<>();
+        robot.interact(() -> {
+            pane.setPulseWorkBudget(500);
+            first.getTabPane().getTabs().addListener((ListChangeListener<? super Tab>) c -> {
+                while (c.next()) {
+                    if (c.wasAdded()) {
+                        addedPerChange.add(c.getAddedSize());
+                    }
+                }
+            });
+        });
+
+        // requested from several threads at once (the test thread is not the FX thread either)
+        final List<CompletableFuture<Tab>> futures = Collections.synchronizedList(new ArrayList<>());
+        final Thread[] workers = new Thread[4];
+        for (int i = 0; i < workers.length; i++) {
+            final int worker = i;
+            workers[i] = new Thread(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    futures.add(pane.addTabAsync("worker" + worker + "-" + j, Region::new));
+                }
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+        robot.interact(() -> {
+            assertEquals(4_001, first.getTabPane().getTabs().size());
+            // coalesced into at most one change per pulse, none larger than the budget
+            assertTrue(addedPerChange.size() >= 8);
+            assertTrue(addedPerChange.stream().allMatch(added -> added <= 500));
+            // only the selected tab was built
+            assertEquals(1, first.getTabPane().getTabs().stream().filter(tab -> tab.getContent() != null).count());
+        });
+
+        final Tab removed = futures.get(0).get();
+        pane.removeTabAsync(removed).get(30, TimeUnit.SECONDS);
+        robot.interact(() -> {
+            assertNull(removed.getTabPane());
+            assertEquals(4_000, first.getTabPane().getTabs().size());
+        });
+    }
+
+    @Test
+    void tab_registry_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Map<String, Node> contents = new LinkedHashMap<>();
+            for (int i = 0; i < 10_000; i++) {
+                contents.put(String.format("file%05d.txt", i), new Region());
+            }
+            final List<Tab> tabs = pane.addTabs(contents);
+            for (int i = 1; i < 20; i++) {
+                pane.splitTab(tabs.get(i * 500), Orientation.VERTICAL);
+            }
+            // drag: moved between groups without being closed
+            final Tab moved = tabs.get(42);
+            pane.removeTab(moved);
+            tabs.get(1_000).getTabPane().getTabs().add(moved);
+
+            for (Tab tab : tabs) {
+                assertSame(tab, pane.getTab(DockablePane.getTabId(tab)));
+            }
+            assertEquals(List.of(tabs.get(1_234)), pane.findTabs("FILE01234", 10));
+            assertEquals(tabs.subList(1_200, 1_300), pane.findTabs("file012", 1_000));
+            assertEquals(tabs.subList(0, 5), pane.findTabs("", 5));
+            assertTrue(pane.findTabs("other", 10).isEmpty());
+
+            // renamed tabs are found by their new title only
+            DockableSkin.setTitle(tabs.get(7), "renamed");
+            assertEquals(List.of(tabs.get(7)), pane.findTabs("ren", 10));
+            assertFalse(pane.findTabs("file00007", 10).contains(tabs.get(7)));
+
+            // closed tabs are forgotten
+            pane.removeTab(tabs.get(9));
+            assertNull(pane.getTab(DockablePane.getTabId(tabs.get(9))));
+            pane.removeAllOtherGroups(tabs.get(0));
+            assertNull(pane.getTab(DockablePane.getTabId(tabs.get(500))));
+            assertSame(tabs.get(1), pane.getTab(DockablePane.getTabId(tabs.get(1))));
+
+            // the quick switcher lists the matches, and selects the chosen one in its group
+            final QuickSwitcher switcher = pane.ensureSkin().getQuickSwitcher();
+            switcher.getQuery().setText("file0001");
+            assertEquals(pane.findTabs("file0001", QuickSwitcher.MAX_RESULTS), switcher.getResults().getItems());
+            switcher.getResults().getSelectionModel().select(tabs.get(15));
+            switcher.selectAndHide();
+            assertTrue(tabs.get(15).isSelected());
+
+            pane.removeAll();
+            assertNull(pane.getTab(DockablePane.getTabId(tabs.get(1))));
+            assertTrue(pane.findTabs("", 10).isEmpty());
+        });
+    }
+
+    @Test
+    void tab_id_leaves_css_id_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Tab tab = pane.addTab("styled", new Region());
+            final String tabId = DockablePane.getTabId(tab);
+            assertNull(tab.getId());
+
+            // the application's css id neither replaces nor is replaced by the dock id
+            tab.setId("styled-tab");
+            pane.splitTab(tab, Orientation.HORIZONTAL);
+            assertEquals("styled-tab", tab.getId());
+            assertEquals(tabId, DockablePane.getTabId(tab));
+            assertSame(tab, pane.getTab(tabId));
+            assertNull(pane.getTab("styled-tab"));
+            assertNotNull(pane.getModel().getGroupOf(tabId));
+        });
+    }
+
+    @Test
+    void container_pool_test(FxRobot robot) {
+        robot.interact(() -> {
+            final List<Tab> tabs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tabs.add(pane.addTab("tab" + i, new Region()));
+            }
+            final DockableSkin skin = pane.ensureSkin();
+            final TabPane first = tabs.get(0).getTabPane();
+
+            // split and merge back repeatedly: after the first round, every TabPane comes from the pool
+            final Set<Node> containers = new HashSet<>();
+            for (int round = 0; round < 50; round++) {
+                for (int i = 1; i < 5; i++) {
+                    pane.splitTab(tabs.get(i), i % 2 == 0 ? Orientation.VERTICAL : Orientation.HORIZONTAL);
+                    containers.add(tabs.get(i).getTabPane());
+                }
+                for (int i = 1; i < 5; i++) {
+                    pane.removeTab(tabs.get(i));
+                    first.getTabs().add(tabs.get(i));
+                }
+                assertEquals(Set.of(first), skin.getAttachedTabPanes());
+                assertIndexMatchesTreeWalk(new HashSet<>());
+            }
+            assertTrue(pane.getPoolHitCount() >= 49 * 4);
+            assertTrue(pane.getPoolMissCount() > 0);
+            assertEquals(4, containers.size());
+
+            // reused TabPanes behave like new ones (lazy content is built once selected there)
+            final int[] built = {0};
+            final Tab lazy = pane.addTab("lazy", () -> {
+                built[0]++;
+                return new Region();
+            });
+            pane.splitTab(lazy, Orientation.VERTICAL);
+            assertTrue(containers.contains(lazy.getTabPane()));
+            assertEquals(1, built[0]);
+            assertEquals(11, pane.getModel().getTabCount());
+
+            // ...and do not keep what the application changed on them while they were in use
+            final TabPane changed = lazy.getTabPane();
+            pane.splitTab(tabs.get(1), Orientation.HORIZONTAL);
+            final SplitPane changedSplit = skin.findMostDirectContainer(tabs.get(1).getTabPane());
+            assertEquals(Orientation.VERTICAL, changedSplit.getOrientation());
+            changed.setSide(Side.LEFT);
+            changed.setTabClosingPolicy(TabPane.TabClosingPolicy.ALL_TABS);
+            changed.setStyle("-fx-background-color: red;");
+            changed.getStyleClass().add("app-group");
+            changed.getProperties().put("app", "value");
+            changedSplit.getStyleClass().add("app-split");
+            pane.removeTab(lazy);
+            assertEquals(Side.TOP, changed.getSide());
+            assertEquals(TabPane.TabClosingPolicy.UNAVAILABLE, changed.getTabClosingPolicy());
+            assertEquals("", changed.getStyle());
+            assertFalse(changed.getStyleClass().contains("app-group"));
+            assertFalse(changed.getProperties().containsKey("app"));
+            assertSame(pane.ensureSkin(), DockableSkin.ownerOf(changed));
+            pane.removeTab(tabs.get(1));
+            assertNull(changedSplit.getParent());
+            assertFalse(changedSplit.getStyleClass().contains("app-split"));
+            assertEquals(Orientation.HORIZONTAL, changedSplit.getOrientation());
+            first.getTabs().add(tabs.get(1));
+
+            // TabPanes built by a previous factory are not reused
+            final int[] factoryBuilt = {0};
+            pane.setTabPaneFactory(() -> {
+                factoryBuilt[0]++;
+                return new TabPane();
+            });
+            pane.splitTab(tabs.get(1), Orientation.VERTICAL);
+            assertEquals(1, factoryBuilt[0]);
+            assertFalse(containers.contains(tabs.get(1).getTabPane()));
+        });
+    }
+
+    @Test
+    void split_tree_stays_normalized_test(FxRobot robot) {
+        final Random random = new Random(7);
+        final List<Tab> tabs = new ArrayList<>();
+
+        robot.interact(() -> {
+            final DockableSkin skin = pane.ensureSkin();
+            int maxDepth = 0;
+            for (int i = 0; i < 3_000; i++) {
+                randomOperation(random, tabs);
+                tabs.removeIf(tab -> tab.getTabPane() == null);
+                final int depth = assertNormalized((SplitPane) skin.getNode(), true);
+                // every level splits at least one more group off, and levels alternate orientation
+                assertTrue(depth <= Math.max(1, skin.getAttachedTabPanes().size()), "depth: " + depth);
+                maxDepth = Math.max(maxDepth, depth);
+            }
+            assertTrue(maxDepth > 1);
+        });
+    }
+
+    @Test
+    void repeated_splits_are_flattened_test(FxRobot robot) {
+        robot.interact(() -> {
+            final DockableSkin skin = pane.ensureSkin();
+            final SplitPane root = (SplitPane) skin.getNode();
+            final Tab a = pane.addTab("a", new Region());
+            final Tab b = pane.addTab("b", new Region());
+            final Tab c = pane.addTab("c", new Region());
+            pane.splitTab(b, Orientation.VERTICAL);
+            pane.removeTab(c);
+            b.getTabPane().getTabs().add(c);
+            root.setDividerPositions(0.5);
+
+            // wrapping b's group in a SplitPane of the root's orientation merges it into the root, keeping the ratio
+            pane.splitTab(c, Orientation.VERTICAL);
+            assertEquals(List.of(a.getTabPane(), b.getTabPane(), c.getTabPane()), root.getItems());
+            assertArrayEquals(new double[]{0.5, 0.75}, root.getDividerPositions(), 1e-9);
+
+            // the same split over and over stays a single level
+            for (int i = 0; i < 200; i++) {
+                pane.splitTab(pane.addTab("tab" + i, new Region()), Orientation.VERTICAL);
+            }
+            assertEquals(1, assertNormalized(root, true));
+            assertEquals(203, root.getItems().size());
+
+            // closing all but one group of a nested split leaves no single-item SplitPane behind
+            final Tab d = pane.addTab("d", new Region());
+            pane.splitTab(d, Orientation.HORIZONTAL);
+            assertEquals(2, assertNormalized(root, true));
+            pane.removeTab(d);
+            assertEquals(1, assertNormalized(root, true));
+
+            // a nested SplitPane given the orientation of its container is merged into it by the next operation
+            final Tab e = pane.addTab("e", new Region());
+            pane.splitTab(e, Orientation.HORIZONTAL);
+            final SplitPane nested = skin.findMostDirectContainer(e.getTabPane());
+            final int rootItems = root.getItems().size();
+            nested.setOrientation(root.getOrientation());
+            pane.batch(dockable -> {
+            });
+            assertEquals(1, assertNormalized(root, true));
+            assertEquals(rootItems + 1, root.getItems().size());
+            assertIndexMatchesTreeWalk(new HashSet<>());
+        });
+    }
+
+    @Test
+    void drop_zone_index_test(FxRobot robot) {
+        robot.interact(() -> {
+            final TabPane left = new TabPane();
+            final TabPane right = new TabPane();
+            final DropZoneIndex index = new DropZoneIndex();
+            index.add(left, new BoundingBox(0, 0, 100, 100), 20);
+            index.add(right, new BoundingBox(100, 0, 100, 100), 20);
+
+            assertDropZone(index.find(50, 10), left, null);
+            assertDropZone(index.find(50, 60), left, null);
+            assertDropZone(index.find(5, 60), left, Side.LEFT);
+            assertDropZone(index.find(95, 60), left, Side.RIGHT);
+            assertDropZone(index.find(50, 25), left, Side.TOP);
+            assertDropZone(index.find(50, 95), left, Side.BOTTOM);
+            assertDropZone(index.find(150, 60), right, null);
+            assertNull(index.find(250, 50));
+
+            assertEquals(new BoundingBox(0, 0, 50, 100), index.find(5, 60).preview);
+            assertEquals(new BoundingBox(100, 50, 100, 50), index.find(150, 95).preview);
+        });
+    }
+
+    @Test
+    void drag_ghost_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Tab tab = new Tab();
+            tab.setGraphic(new Rectangle(80, 20, Color.GRAY));
+            tab.setContent(new Rectangle(960, 480, Color.BLUE));
+            final DragGhost ghost = new DragGhost();
+            assertFalse(ghost.getView().isVisible());
+
+            // the picture is downscaled to fit DragGhost.MAX_SIZE
+            ghost.show(tab, 100, 50);
+            assertTrue(ghost.isShowing());
+            assertTrue(ghost.getView().isVisible());
+            final ImageView content = (ImageView) ((VBox) ghost.getView()).getChildren().get(1);
+            final Image image = content.getImage();
+            assertNotNull(image);
+            assertEquals(DragGhost.MAX_SIZE, image.getWidth());
+            assertEquals(DragGhost.MAX_SIZE / 2, image.getHeight());
+
+            // moving it moves only the picture, the tab is left alone
+            ghost.move(300, 200);
+            assertEquals(312, ghost.getView().getLayoutX());
+            assertSame(image, content.getImage());
+
+            // the next drag reuses the captured image when it is large enough
+            ghost.hide();
+            assertNull(content.getImage());
+            tab.setContent(new Rectangle(480, 240, Color.RED));
+            ghost.show(tab, 0, 0);
+            assertSame(image, content.getImage());
+            assertEquals(DragGhost.MAX_SIZE / 2, content.getViewport().getHeight());
+        });
+    }
+
+    @Test
+    void floating_windows_test(FxRobot robot, @TempDir Path directory) {
+        robot.interact(() -> {
+            final DockableSkin skin = pane.ensureSkin();
+            final Region content = new Region();
+            final Tab a = pane.addTab("a", new Region());
+            final Tab b = pane.addTab("b", content);
+            final Tab c = pane.addTab("c", new Region());
+            final TabPane group = a.getTabPane();
+
+            // the tab moves with its content into a window of its own
+            pane.undockTab(b);
+            assertEquals(1, skin.getFloatingWindows().size());
+            final FloatingWindow window = skin.getFloatingWindows().iterator().next();
+            assertSame(window.getSkin(), DockableSkin.ownerOf(b.getTabPane()));
+            assertSame(content, b.getContent());
+            assertTrue(b.isSelected());
+            assertEquals(List.of(a, c), group.getTabs());
+            final DockModel model = pane.getModel();
+            assertEquals(1, model.getWindows().size());
+            assertEquals(List.of(DockablePane.getTabId(b)), model.getWindows().get(0).getRoot().getItems().stream()
+                    .map(item -> ((DockModel.Group) item).getTabIds()).findFirst().orElseThrow());
+            model.validate();
+
+            // the tabs of floating windows can still be looked up through the pane
+            assertSame(b, pane.getTab(DockablePane.getTabId(b)));
+            assertEquals(List.of(b), pane.findTabs("b", 10));
+            assertSame(skin.getQuickSwitcher(), window.getSkin().getQuickSwitcher());
+
+            // closing the window (or redocking its last tab) puts the tab back
+            pane.redockTab(b);
+            assertTrue(skin.getFloatingWindows().isEmpty());
+            assertSame(group, b.getTabPane());
+            assertSame(content, b.getContent());
+            assertSame(b, pane.getTab(DockablePane.getTabId(b)));
+
+            // tabs are redocked into the first group, the same one as in the model, whichever group was used last
+            pane.splitTab(c, Orientation.HORIZONTAL);
+            pane.splitTab(a, Orientation.HORIZONTAL);
+            Event.fireEvent(c.getTabPane(), mouseEvent(MouseEvent.MOUSE_PRESSED, 0));
+            assertSame(c.getTabPane(), pane.getActiveGroup());
+            assertNotSame(c.getTabPane(), a.getTabPane());
+            pane.undockTab(b); // empties the group the tabs were added to
+            final DockModel expected = pane.getModel();
+            expected.redockTab(DockablePane.getTabId(b));
+            pane.redockTab(b);
+            assertEquals(expected.toString(), pane.getModel().toString());
+            assertEquals(List.of(a, b), b.getTabPane().getTabs());
+            assertTrue(b.isSelected());
+            final DockModel joined = pane.getModel();
+            joined.moveTab(DockablePane.getTabId(c), joined.getGroupOf(DockablePane.getTabId(a)).getId(),
+                    Integer.MAX_VALUE);
+            pane.applyModel(joined, id -> fail("tab " + id + " was rebuilt"));
+            assertEquals(List.of(a, b, c), b.getTabPane().getTabs());
+
+            // a whole group keeps its id, and the model can bring it back without rebuilding the tabs
+            final String groupId = pane.getModel().getGroupOf(DockablePane.getTabId(a)).getId();
+            pane.undockGroup(c);
+            final DockModel undocked = pane.getModel();
+            assertEquals(groupId, undocked.getGroupOf(DockablePane.getTabId(a)).getId());
+            assertNotNull(undocked.getWindowOf(undocked.getGroupOf(DockablePane.getTabId(a))));
+            assertEquals(0, undocked.getRoot().getItems().size());
+            undocked.redockWindow(undocked.getWindows().get(0).getId());
+            pane.applyModel(undocked, id -> fail("tab " + id + " was rebuilt"));
+            assertTrue(skin.getFloatingWindows().isEmpty());
+            assertSame(a.getTabPane(), c.getTabPane());
+            assertSame(skin, DockableSkin.ownerOf(a.getTabPane()));
+            assertSame(content, b.getContent());
+
+            // floating windows are saved and restored with the layout
+            pane.undockTab(c);
+            final Path file = directory.resolve("layout.bin");
+            try {
+                pane.saveLayout(file);
+                pane.restoreLayout(file, id -> new Label(id));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            assertEquals(1, skin.getFloatingWindows().size());
+            final FloatingWindow restored = skin.getFloatingWindows().iterator().next();
+            assertEquals(List.of(DockablePane.getTabId(c)), restored.getPane().getModel().getGroups().stream()
+                    .filter(it -> restored.getPane().getModel().getWindowOf(it) != null)
+                    .flatMap(it -> it.getTabIds().stream()).collect(Collectors.toList()));
+            assertEquals(3, pane.getModel().getTabCount());
+
+            pane.removeAll();
+            assertTrue(skin.getFloatingWindows().isEmpty());
+        });
+    }
+
+    @Test
+    void unshown_tabs_are_hidden_test(FxRobot robot) {
+        // (the shown cases are in DockablePaneTests)
+        final List<TabVisibilityEvent> events = new ArrayList<>();
+        final List<Tab> tabs = new ArrayList<>();
+        robot.interact(() -> {
+            pane.setOnTabVisibilityChanged(events::add);
+            tabs.add(pane.addTab("a", new Region()));
+            tabs.add(pane.addTab("b", new Region()));
+            pane.undockTab(tabs.get(1));
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertTrue(events.isEmpty());
+        assertFalse(pane.isTabVisible(tabs.get(0)));
+        assertFalse(pane.isTabVisible(tabs.get(1)));
+    }
+
+    @Test
+    void divider_resize_modes_test(FxRobot robot) {
+        robot.interact(() -> {
+            // (the SplitPanes of the pane hold skinless TabPanes, which cannot be laid out headlessly)
+            final DockableSkin skin = pane.ensureSkin();
+            final Region left = new Region();
+            final SplitPane root = new SplitPane(left, new Region());
+            skin.getDividerResize().install(root);
+            root.setSkin(new SplitPaneSkin(root));
+            root.resize(800, 600);
+            root.layout();
+            final Node divider = root.lookup(".split-pane-divider");
+            assertEquals(0.5, root.getDividerPositions()[0], 0.01);
+
+            // the content only follows the ghost on release
+            pane.setDividerResizeMode(DividerResizeMode.DEFERRED);
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_PRESSED, 400));
+            assertTrue(left.isCache());
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_DRAGGED, 300));
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_DRAGGED, 200));
+            assertEquals(0.5, root.getDividerPositions()[0], 0.01);
+            assertTrue(skin.getDividerResize().getGhost().isVisible());
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_RELEASED, 200));
+            assertEquals(0.25, root.getDividerPositions()[0], 0.01);
+            assertFalse(skin.getDividerResize().getGhost().isVisible());
+            assertFalse(left.isCache());
+            root.layout();
+
+            // held back drags are delivered at most once per interval
+            pane.setDividerResizeMode(DividerResizeMode.THROTTLED);
+            pane.setDividerResizeInterval(1000);
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_PRESSED, 200));
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_DRAGGED, 400));
+            assertEquals(0.25, root.getDividerPositions()[0], 0.01);
+            skin.getDividerResize().flush(2_000_000_000L);
+            assertEquals(0.5, root.getDividerPositions()[0], 0.01);
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_DRAGGED, 600));
+            skin.getDividerResize().flush(2_500_000_000L);
+            assertEquals(0.5, root.getDividerPositions()[0], 0.01);
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_RELEASED, 600));
+            assertEquals(0.75, root.getDividerPositions()[0], 0.01);
+            assertFalse(skin.getDividerResize().isDragging());
+            root.layout();
+
+            // live drags go straight to the SplitPane
+            pane.setDividerResizeMode(DividerResizeMode.LIVE);
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_PRESSED, 600));
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_DRAGGED, 400));
+            assertEquals(0.5, root.getDividerPositions()[0], 0.01);
+            Event.fireEvent(divider, mouseEvent(MouseEvent.MOUSE_RELEASED, 400));
+        });
+    }
+
+    @NotNull
+    private static MouseEvent mouseEvent(@NotNull EventType<MouseEvent> type, double x) {
+        return new MouseEvent(type, x, 300, x, 300, MouseButton.PRIMARY, 1, false, false, false, false,
+                true, false, false, false, false, false, null);
+    }
+
+    @Test
+    void tab_lists_test(FxRobot robot) {
+        robot.interact(() -> {
+            final DockableSkin skin = pane.ensureSkin();
+            final Tab a = pane.addTab("a", new Region());
+            final Tab b = pane.addTab("b", new Region());
+            final Tab c = pane.addTab("c", new Region());
+            assertEquals(List.of(a, b, c), pane.getAllTabs());
+            assertEquals(List.of(a.getTabPane()), pane.getGroups());
+            assertThrows(UnsupportedOperationException.class, () -> pane.getAllTabs().add(new Tab()));
+
+            // every change to the tree is a fine-grained change of the lists
+            final List<String> changes = new ArrayList<>();
+            pane.getAllTabs().addListener((ListChangeListener<Tab>) change -> {
+                while (change.next()) {
+                    change.getRemoved().forEach(tab -> changes.add("-" + DockableSkin.getTitle(tab)));
+                    change.getAddedSubList().forEach(tab -> changes.add("+" + DockableSkin.getTitle(tab)));
+                }
+            });
+            final Tab d = pane.addTab("d", new Region());
+            assertEquals(List.of("+d"), changes);
+            assertListed(Set.of(a, b, c, d));
+
+            // only the moved tab changes, also when its group gets wrapped into a new split (and so is re-parented)
+            changes.clear();
+            pane.splitTab(b, Orientation.HORIZONTAL);
+            assertEquals(List.of("-b", "+b"), changes);
+            assertEquals(2, pane.getGroups().size());
+            changes.clear();
+            pane.splitTab(d, Orientation.VERTICAL);
+            assertEquals(List.of("-d", "+d"), changes);
+            assertEquals(3, pane.getGroups().size());
+            assertListed(Set.of(a, b, c, d));
+
+            changes.clear();
+            skin.dock(c, b.getTabPane(), null);
+            assertEquals(List.of("-c", "+c"), changes);
+            assertListed(Set.of(a, b, c, d));
+
+            // tabs of floating windows are listed with the others
+            pane.undockTab(a);
+            assertEquals(3, pane.getGroups().size());
+            assertListed(Set.of(a, b, c, d));
+
+            changes.clear();
+            pane.removeTab(d);
+            assertEquals(List.of("-d"), changes);
+            pane.removeAllOtherGroups(b);
+            assertListed(Set.of(b, c));
+
+            pane.removeAll();
+            assertTrue(pane.getAllTabs().isEmpty());
+            assertTrue(pane.getGroups().isEmpty());
+        });
+    }
+
+    @Test
+    void indexed_list_test() {
+        final IndexedList<String> list = new IndexedList<>();
+        final List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<String>) change -> {
+            final List<String> parts = new ArrayList<>();
+            while (change.next()) {
+                parts.add(change.getFrom() + (change.wasRemoved() ? "-" + change.getRemoved() : "")
+                        + (change.wasAdded() ? "+" + change.getAddedSubList() : ""));
+            }
+            changes.add(String.join(" ", parts));
+        });
+        list.append(List.of("a", "b", "c", "d", "e", "f"));
+        list.append(List.of("a", "g"));
+        assertEquals(List.of("0+[a, b, c, d, e, f]", "6+[g]"), changes);
+
+        // scattered removals are a single change, and the values after them know their new positions
+        changes.clear();
+        list.remove(List.of("e", "b", "x", "d", "b"));
+        assertEquals(List.of("1-[b] 2-[d, e]"), changes);
+        assertEquals(List.of("a", "c", "f", "g"), list);
+        assertEquals(2, list.indexOf("f"));
+        assertEquals(3, list.indexOf("g"));
+        assertFalse(list.contains("d"));
+        assertEquals(-1, list.indexOf("d"));
+        list.remove(List.of("x"));
+        assertEquals(1, changes.size());
+    }
+
+    // the listed tabs are exactly the expected ones, each listed once, and they are those of the listed groups
+    private void assertListed(@NotNull Set<Tab> expected) {
+        assertEquals(expected.size(), pane.getAllTabs().size());
+        assertEquals(expected, new HashSet<>(pane.getAllTabs()));
+        assertEquals(expected, pane.getGroups().stream()
+                .flatMap(group -> group.getTabs().stream()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void group_recency_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Tab a = pane.addTab("a", new Region());
+            final Tab b = pane.addTab("b", new Region());
+            final Tab c = pane.addTab("c", new Region());
+            final TabPane first = a.getTabPane();
+            assertSame(first, pane.getActiveGroup());
+
+            // splitting (or dropping) a tab activates the group it ends up in
+            pane.splitTab(b, Orientation.HORIZONTAL);
+            final TabPane second = b.getTabPane();
+            assertSame(second, pane.getActiveGroup());
+            assertSame(first, pane.addTab("d", new Region()).getTabPane());
+            pane.setTabTargetPolicy(TabTargetPolicy.ACTIVE_GROUP);
+            assertSame(second, pane.addTab("e", new Region()).getTabPane());
+
+            // so does pressing it
+            Event.fireEvent(first, mouseEvent(MouseEvent.MOUSE_PRESSED, 0));
+            assertSame(first, pane.getActiveGroup());
+            assertSame(first, pane.addTab("f", new Region()).getTabPane());
+
+            // moving a group around (here into a new vertical split) keeps its recency
+            final SplitPane container = pane.ensureSkin().findMostDirectContainer(first);
+            pane.splitTab(c, Orientation.VERTICAL);
+            assertNotSame(container, pane.ensureSkin().findMostDirectContainer(first));
+            pane.removeGroup(c);
+            assertSame(first, pane.getActiveGroup());
+
+            // closing the active group (which tabs were first added to) hands both roles on to the most recent group
+            pane.setTabTargetPolicy(TabTargetPolicy.FIRST_GROUP);
+            Event.fireEvent(first, mouseEvent(MouseEvent.MOUSE_PRESSED, 0));
+            pane.removeGroup(first.getTabs().get(0));
+            assertSame(second, pane.getActiveGroup());
+            assertSame(second, pane.addTab("g", new Region()).getTabPane());
+
+            pane.removeAll();
+            assertNull(pane.getActiveGroup());
+        });
+    }
+
+    @Test
+    void tab_switcher_test(FxRobot robot) {
+        robot.interact(() -> {
+            final DockableSkin skin = pane.ensureSkin();
+            final Tab a = pane.addTab("a", new Region());
+            final Tab b = pane.addTab("b", new Region());
+            final Tab c = pane.addTab("c", new Region());
+            pane.splitTab(c, Orientation.HORIZONTAL); // c is selected in its new group
+
+            // the most recently selected tabs come first (tabs never selected last), the previous one is preselected
+            final TabSwitcher switcher = skin.getTabSwitcher();
+            switcher.show(skin.getNode(), true);
+            assertEquals(List.of(c, a, b), switcher.getPreview().getItems());
+            assertSame(a, switcher.getPreview().getSelectionModel().getSelectedItem());
+            switcher.next();
+            switcher.next();
+            assertSame(c, switcher.getPreview().getSelectionModel().getSelectedItem());
+            switcher.previous();
+            switcher.selectAndHide();
+            assertTrue(b.isSelected());
+            assertTrue(switcher.getPreview().getItems().isEmpty());
+
+            // choosing the tab already selected in another group makes it the most recent one too
+            switcher.show(skin.getNode(), true);
+            assertEquals(List.of(b, c, a), switcher.getPreview().getItems());
+            switcher.selectAndHide();
+            assertSame(c, skin.getTabLists().getRecentTabs().mostRecent());
+
+            // closed tabs are forgotten, and Ctrl+Tab shows the switcher
+            pane.removeTab(a);
+            Event.fireEvent(pane, new KeyEvent(KeyEvent.KEY_PRESSED, "", "", KeyCode.TAB,
+                    false, true, false, false));
+            assertEquals(List.of(c, b), switcher.getPreview().getItems());
+            switcher.selectAndHide();
+
+            // however many tabs are open, only the most recent ones are listed
+            final List<String> names = new ArrayList<>();
+            final List<Supplier<Node>> contents = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                names.add("tab" + i);
+                contents.add(Region::new);
+            }
+            final List<Tab> tabs = skin.addTabs(names, contents);
+            switcher.show(skin.getNode(), false);
+            assertEquals(TabSwitcher.MAX_PREVIEW, switcher.getPreview().getItems().size());
+            assertEquals(List.of(b, c), switcher.getPreview().getItems().subList(0, 2));
+            final Tab last = switcher.getPreview().getSelectionModel().getSelectedItem();
+            assertSame(tabs.get(TabSwitcher.MAX_PREVIEW - 3), last);
+            switcher.selectAndHide();
+            assertSame(last, skin.getTabLists().getRecentTabs().mostRecent());
+        });
+    }
+
+    @Test
+    void lazy_skin_test(FxRobot robot) {
+        robot.interact(() -> {
+            // nothing is built until the first css pass...
+            final DockablePane shown = new DockablePane();
+            assertNull(shown.getSkin());
+            final StackPane root = new StackPane(shown);
+            new Scene(root, 200, 100);
+            root.applyCss();
+            assertTrue(shown.getSkin() instanceof DockableSkin);
+            assertEquals(1, shown.getChildrenUnmodifiable().size());
+
+            // ...or the first call that needs the skin
+            final DockablePane filled = new DockablePane();
+            final Tab tab = filled.addTab("a", new Region());
+            assertTrue(filled.getSkin() instanceof DockableSkin);
+            assertSame(filled.getSkin(), DockableSkin.ownerOf(tab.getTabPane()));
+            assertSame(filled, filled.ensureSkin().getSkinnable());
+        });
+    }
+
+    @Test
+    void icon_cache_test(FxRobot robot) throws Exception {
+        final Object[] all = {"1x", "2x", "3x"};
+        assertEquals(1, IconCache.variantScale(1, all));
+        assertEquals(2, IconCache.variantScale(1.5, all));
+        assertEquals(2, IconCache.variantScale(2, all));
+        assertEquals(3, IconCache.variantScale(2.25, all));
+        assertEquals(3, IconCache.variantScale(4, all));
+        assertEquals(3, IconCache.variantScale(1.5, new Object[]{"1x", null, "3x"}));
+        assertEquals(2, IconCache.variantScale(1, new Object[]{null, "2x", null}));
+
+        // variants are decoded in the background, at their displayed size
+        final IconCache cache = IconCache.getDefault();
+        final Image image = cache.getImage(IconCache.VERTICAL_SPLIT, 2);
+        assertTrue(image.isBackgroundLoading());
+        assertSame(image, cache.getImage(IconCache.VERTICAL_SPLIT, 1.75));
+        WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> image.getProgress() == 1);
+        assertFalse(image.isError());
+        assertEquals(32, image.getWidth());
+        assertEquals(48, cache.getImage(IconCache.VERTICAL_SPLIT, 3).getRequestedWidth());
+
+        // user icons work the same, with whatever variants they have
+        final IconCache custom = new IconCache();
+        custom.register("split", 24, null, DockableSkin.class.getResource("horizontal-split@2x.png"), null);
+        final ImageView view = WaitForAsyncUtils.asyncFx(() -> custom.createView("split")).get();
+        assertEquals(24, view.getFitWidth());
+        assertSame(custom.getImage("split", 1), view.getImage());
+        assertEquals(48, view.getImage().getRequestedWidth());
+        assertThrows(IllegalArgumentException.class, () -> custom.createView("unknown"));
+    }
+
+    @Test
+    void dock_test(FxRobot robot) {
+        robot.interact(() -> {
+            final DockableSkin skin = pane.ensureSkin();
+            final SplitPane root = (SplitPane) skin.getNode();
+            final Tab a = pane.addTab("a", new Region());
+            final Tab b = pane.addTab("b", new Region());
+            final Tab c = pane.addTab("c", new Region());
+            final TabPane first = a.getTabPane();
+
+            // an edge of the tab's own group
+            skin.dock(c, first, Side.BOTTOM);
+            assertEquals(Orientation.VERTICAL, root.getOrientation());
+            assertEquals(List.of(first, c.getTabPane()), root.getItems());
+            assertTrue(c.isSelected());
+
+            // across the orientation of the container, the target is wrapped with the new group
+            final TabPane third = c.getTabPane();
+            skin.dock(b, third, Side.LEFT);
+            final SplitPane wrapper = (SplitPane) root.getItems().get(1);
+            assertEquals(Orientation.HORIZONTAL, wrapper.getOrientation());
+            assertEquals(List.of(b.getTabPane(), third), wrapper.getItems());
+
+            // along the orientation of the container, the target's space is halved
+            root.setDividerPositions(0.6);
+            final Tab d = pane.addTab("d", new Region());
+            skin.dock(d, first, Side.TOP);
+            assertEquals(List.of(d.getTabPane(), first, wrapper), root.getItems());
+            assertArrayEquals(new double[]{0.3, 0.6}, root.getDividerPositions(), 1e-9);
+
+            // into the middle of another group, emptying (and closing) the source, which flattens the tree
+            skin.dock(a, b.getTabPane(), null);
+            skin.dock(d, b.getTabPane(), null);
+            assertSame(b.getTabPane(), a.getTabPane());
+            assertEquals(Orientation.HORIZONTAL, root.getOrientation());
+            assertEquals(List.of(b.getTabPane(), third), root.getItems());
+            assertEquals(1, assertNormalized(root, true));
+            assertIndexMatchesTreeWalk(new HashSet<>());
+
+            // nothing to split off a group with a single tab
+            skin.dock(c, third, Side.RIGHT);
+            assertEquals(List.of(b.getTabPane(), third), root.getItems());
+        });
+    }
+
+    private static void assertDropZone(DropZoneIndex.DropZone zone, TabPane target, Side side) {
+        assertNotNull(zone);
+        assertSame(target, zone.target);
+        assertEquals(side, zone.side);
+    }
+
+    @Test
+    void add_tabs_single_change_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Tab first = pane.addTab("first", new TextArea());
+            final int[] changes = {0};
+            first.getTabPane().getTabs().addListener((ListChangeListener<? super Tab>) c -> changes[0]++);
+
+            final Map<String, Node> contents = new LinkedHashMap<>();
+            for (int i = 0; i < 500; i++) {
+                contents.put("tab" + i, new TextArea());
+            }
+            final List<Tab> tabs = pane.addTabs(contents);
+
+            assertEquals(1, changes[0]);
+            assertEquals(500, tabs.size());
+            assertEquals(501, first.getTabPane().getTabs().size());
+            assertSame(first.getTabPane(), tabs.get(499).getTabPane());
+            assertEquals("tab0", ((Label) tabs.get(0).getGraphic()).getText());
+        });
+    }
+
+    @Test
+    void lazy_content_test(FxRobot robot) {
+        robot.interact(() -> {
+            final int[] built = {0};
+            final Tab first = pane.addTab("first", () -> {
+                built[0]++;
+                return new TextArea("first");
+            });
+            // the first tab of an empty group is selected right away, so it is built right away
+            assertEquals(1, built[0]);
+            assertNotNull(first.getContent());
+
+            final Tab lazy = pane.addTab("lazy", () -> {
+                built[0]++;
+                return new TextArea("lazy");
+            });
+            assertEquals(1, built[0]);
+            assertNull(lazy.getContent());
+
+            // moving the tab into a new group selects it there, which builds it (exactly once)
+            pane.splitTab(lazy, Orientation.VERTICAL);
+            assertEquals(2, built[0]);
+            assertNotNull(lazy.getContent());
+
+            final Tab dragged = pane.addTab("dragged", () -> {
+                built[0]++;
+                return new TextArea("dragged");
+            });
+            final Tab other = pane.addTab("other", new TextArea("other"));
+            assertEquals(2, built[0]);
+
+            // a drag into another group keeps the content pending until the tab is selected there
+            pane.removeTab(dragged);
+            lazy.getTabPane().getTabs().add(dragged);
+            assertNull(dragged.getContent());
+            dragged.getTabPane().getSelectionModel().select(dragged);
+            assertEquals(3, built[0]);
+            assertNotNull(dragged.getContent());
+
+            dragged.getTabPane().getSelectionModel().select(lazy);
+            dragged.getTabPane().getSelectionModel().select(dragged);
+            assertEquals(3, built[0]);
+            assertNotNull(other.getContent());
+        });
+    }
+
+    @Test
+    void hibernation_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Map<Tab, String> saved = new HashMap<>();
+            pane.setHibernationPolicy(TabHibernationPolicy.ofTabCount(2, new TabHibernator() {
+                @Override
+                public void save(@NotNull Tab tab, @NotNull Node content) {
+                    saved.put(tab, ((TextArea) content).getText());
+                }
+
+                @NotNull
+                @Override
+                public Node restore(@NotNull Tab tab) {
+                    return new TextArea(saved.remove(tab));
+                }
+            }));
+
+            final List<Tab> tabs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                tabs.add(pane.addTab("tab" + i, new TextArea("text" + i)));
+            }
+            // tab0 is selected (first tab of the group), tab1 and tab2 are the least recently used
+            assertEquals(2, pane.getHibernationCount());
+            assertNotNull(tabs.get(0).getContent());
+            assertNull(tabs.get(1).getContent());
+            assertNull(tabs.get(2).getContent());
+            assertNotNull(tabs.get(3).getContent());
+
+            final TabPane tabPane = tabs.get(0).getTabPane();
+            tabPane.getSelectionModel().select(tabs.get(1));
+            assertEquals(1, pane.getRestoreCount());
+            assertEquals("text1", ((TextArea) tabs.get(1).getContent()).getText());
+            // tab0 (selected only when it was added) is now the least recently used unselected tab
+            assertEquals(3, pane.getHibernationCount());
+            assertNull(tabs.get(0).getContent());
+            assertNotNull(tabs.get(3).getContent());
+
+            // without a policy nothing is hibernated anymore, but hibernated tabs are still restored
+            pane.setHibernationPolicy(null);
+            tabPane.getSelectionModel().select(tabs.get(2));
+            tabPane.getSelectionModel().select(tabs.get(0));
+            assertEquals(3, pane.getRestoreCount());
+            assertEquals(3, pane.getHibernationCount());
+            assertEquals("text2", ((TextArea) tabs.get(2).getContent()).getText());
+            assertEquals("text0", ((TextArea) tabs.get(0).getContent()).getText());
+            assertNotNull(tabs.get(3).getContent());
+        });
+    }
+
+    @Test
+    void hibernator_may_close_tabs_test(FxRobot robot) {
+        robot.interact(() -> {
+            final List<Tab> tabs = new ArrayList<>();
+            final List<Tab> savedTabs = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                tabs.add(pane.addTab("tab" + i, new TextArea("text" + i)));
+            }
+            // saving the first tab closes the other unselected ones, which were about to be hibernated as well
+            pane.setHibernationPolicy(TabHibernationPolicy.ofTabCount(1, new TabHibernator() {
+                @Override
+                public void save(@NotNull Tab tab, @NotNull Node content) {
+                    savedTabs.add(tab);
+                    for (Tab other : tabs) {
+                        if (other != tab && !other.isSelected() && other.getTabPane() != null) {
+                            pane.removeTab(other);
+                        }
+                    }
+                }
+
+                @NotNull
+                @Override
+                public Node restore(@NotNull Tab tab) {
+                    return new TextArea();
+                }
+            }));
+
+            assertEquals(1, savedTabs.size());
+            assertEquals(1, pane.getHibernationCount());
+            assertNull(savedTabs.get(0).getContent());
+            assertEquals(List.of(tabs.get(0), savedTabs.get(0)), tabs.get(0).getTabPane().getTabs());
+            assertNotNull(tabs.get(0).getContent());
+        });
+    }
+
+    @Test
+    void model_round_trip_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Tab tab1 = pane.addTab("tab1", new TextArea());
+            final Tab tab2 = pane.addTab("tab2", new TextArea());
+            final Tab tab3 = pane.addTab("tab3", new TextArea());
+            pane.splitTab(tab2, Orientation.VERTICAL);
+            pane.splitTab(tab3, Orientation.HORIZONTAL);
+
+            final DockModel model = pane.getModel();
+            model.validate();
+            assertEquals(3, model.getGroups().size());
+
+            // applying an unchanged model touches nothing
+            final TabPane untouched = tab2.getTabPane();
+            final int[] changes = {0};
+            untouched.getTabs().addListener((ListChangeListener<? super Tab>) c -> changes[0]++);
+            pane.applyModel(model, id -> fail("no tab should be created"));
+            assertEquals(model.toString(), pane.getModel().toString());
+            assertEquals(0, changes[0]);
+
+            // move tab1 next to tab3, close tab2's group and add a new (lazily built) tab
+            final String tab1Id = DockablePane.getTabId(tab1);
+            final String group3 = model.getGroupOf(DockablePane.getTabId(tab3)).getId();
+            model.moveTab(tab1Id, group3, 0);
+            model.removeGroup(model.getGroupOf(DockablePane.getTabId(tab2)).getId());
+            model.addTab("new-tab", "new tab", group3);
+            final int[] built = {0};
+            pane.applyModel(model, id -> {
+                built[0]++;
+                return new TextArea(id);
+            });
+
+            assertEquals(model.toString(), pane.getModel().toString());
+            assertSame(tab1.getTabPane(), tab3.getTabPane());
+            assertNull(tab2.getTabPane());
+            assertEquals(3, tab1.getTabPane().getTabs().size());
+            assertEquals(0, built[0]); // not selected yet
+            final Tab newTab = tab1.getTabPane().getTabs().get(2);
+            assertEquals("new tab", DockableSkin.getTitle(newTab));
+            tab1.getTabPane().getSelectionModel().select(newTab);
+            assertEquals(1, built[0]);
+            assertTrue(pane.ensureSkin().getAttachedTabPanes().contains(tab1.getTabPane()));
+        });
+    }
+
+    @Test
+    void restore_layout_test(FxRobot robot, @TempDir Path directory) throws IOException {
+        final DockModel model = DockModelTests.createLargeModel(10_000, 48);
+        final Path file = directory.resolve("layout.bin");
+        DockLayoutCodec.write(model, file);
+
+        robot.interact(() -> {
+            pane.addTab("replaced", new TextArea());
+            final int[] built = {0};
+            final long start = System.nanoTime();
+            try {
+                pane.restoreLayout(file, id -> {
+                    built[0]++;
+                    return new TextArea(id);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            final long millis = (System.nanoTime() - start) / 1_000_000;
+
+            final DockModel restored = pane.getModel();
+            assertEquals(model.toString(), restored.toString());
+            // only the selected tab of each group is built
+            assertEquals(model.getGroups().size(), built[0]);
+            assertTrue(millis < 10_000);
+        });
+    }
+
+    @Test
+    void context_menu_is_shared_test(FxRobot robot) {
+        robot.interact(() -> {
+            final int count = 2_000;
+            final List<Tab> tabs = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                tabs.add(pane.addTab("tab" + i, new Region()));
+            }
+            pane.splitTab(tabs.get(count - 1), Orientation.HORIZONTAL);
+
+            // no tab gets a menu of its own: menus are only resolved on request
+            for (Tab tab : tabs) {
+                assertNull(tab.getContextMenu());
+            }
+
+            // and every tab (of every group) shares the same one, whose items do not grow with the tabs
+            final DockableSkin skin = pane.ensureSkin();
+            final ContextMenu shared = skin.requestContextMenu(tabs.get(0));
+            final int items = shared.getItems().size();
+            for (Tab tab : List.of(tabs.get(1), tabs.get(count / 2), tabs.get(count - 1))) {
+                assertSame(shared, skin.requestContextMenu(tab));
+                assertSame(shared, tab.getContextMenu());
+            }
+            assertEquals(items, shared.getItems().size());
+        });
+    }
+
+    private void randomOperation(Random random, List<Tab> tabs) {
+        final int operation = tabs.isEmpty() ? 0 : random.nextInt(100);
+        final Tab tab = tabs.isEmpty() ? null : tabs.get(random.nextInt(tabs.size()));
+        if (operation < 40) {
+            tabs.add(pane.addTab("tab" + tabs.size(), new TextArea()));
+        } else if (operation < 55) {
+            pane.splitTab(tab, Orientation.VERTICAL);
+        } else if (operation < 70) {
+            pane.splitTab(tab, Orientation.HORIZONTAL);
+        } else if (operation < 82) {
+            pane.removeTab(tab);
+        } else if (operation < 88) {
+            // simulate a drag by moving the tab into the TabPane of another tab
+            final Tab other = tabs.get(random.nextInt(tabs.size()));
+            final TabPane target = other.getTabPane();
+            if (target != null && target != tab.getTabPane()) {
+                pane.removeTab(tab);
+                target.getTabs().add(tab);
+            }
+        } else if (operation < 93) {
+            pane.removeAllOtherTabsInGroup(tab);
+        } else if (operation < 97) {
+            pane.removeGroup(tab);
+        } else if (operation < 99) {
+            pane.removeAllOtherGroups(tab);
+        } else {
+            pane.removeAll();
+        }
+    }
+
+    // checks that no SplitPane below the root has a single item or the orientation of its container, returns the depth
+    private static int assertNormalized(SplitPane splitPane, boolean isRoot) {
+        if (!isRoot) {
+            assertTrue(splitPane.getItems().size() > 1);
+        }
+        int depth = 0;
+        for (Node item : splitPane.getItems()) {
+            if (item instanceof SplitPane) {
+                assertNotEquals(splitPane.getOrientation(), ((SplitPane) item).getOrientation());
+                depth = Math.max(depth, assertNormalized((SplitPane) item, false));
+            }
+        }
+        return depth + 1;
+    }
+
+    private void assertIndexMatchesTreeWalk(Set<Node> everSeen) {
+        final DockableSkin skin = pane.ensureSkin();
+        final Map<Node, SplitPane> expected = new IdentityHashMap<>();
+        walk((SplitPane) skin.getNode(), expected);
+
+        everSeen.addAll(expected.keySet());
+        for (Node node : everSeen) {
+            assertSame(expected.get(node), skin.findMostDirectContainer(node));
+        }
+
+        final Set<TabPane> expectedTabPanes = new HashSet<>();
+        for (Node node : expected.keySet()) {
+            if (node instanceof TabPane) {
+                expectedTabPanes.add((TabPane) node);
+            }
+        }
+        assertEquals(expectedTabPanes, new HashSet<>(skin.getAttachedTabPanes()));
+    }
+
+    // the recursive walk that the index replaces
+    private static void walk(SplitPane splitPane, Map<Node, SplitPane> result) {
+        for (Node node : splitPane.getItems()) {
+            result.put(node, splitPane);
+            if (node instanceof SplitPane) {
+                walk((SplitPane) node, result);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.event.Event;
+import javafx.geometry.Orientation;
+import javafx.scene.Scene;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TableView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.stage.Stage;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.testfx.api.FxRobot;
+import org.testfx.framework.junit5.ApplicationExtension;
+import org.testfx.framework.junit5.Start;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that tabs closed with {@link DockablePane#releaseClosedTabsProperty()} set (along with their content and the
+ * groups they emptied) are no longer referenced by the pane.
+ */
+@ExtendWith(ApplicationExtension.class)
+public class TabReleaseTests {
+
+    private DockablePane pane;
+
+    @Start
+    private void start(@NotNull Stage stage) {
+        this.pane = new DockablePane();
+        this.pane.setReleaseClosedTabs(true);
+        // shown, so the visibility of the tabs and the drop zones of the groups are tracked too
+        stage.setScene(new Scene(pane, 800, 600));
+        stage.show();
+    }
+
+    @Test
+    void remove_tab_test(FxRobot robot) {
+        final List<Object> closed = new ArrayList<>();
+        robot.interact(() -> {
+            final Tab kept = pane.addTab("kept", new TableView<>());
+            final Tab tab = pane.addTab("closed", new TableView<>());
+            tab.getTabPane().getSelectionModel().select(tab);
+            // pressed (as when a drag starts) and its context menu requested
+            press(tab);
+            pane.ensureSkin().requestContextMenu(tab);
+
+            closed.add(tab);
+            closed.add(tab.getContent());
+            pane.removeTab(tab);
+            assertNotNull(kept.getTabPane());
+        });
+        assertReleased(robot, closed);
+    }
+
+    @Test
+    void remove_group_test(FxRobot robot) {
+        final List<Object> closed = new ArrayList<>();
+        robot.interact(() -> {
+            final Tab kept = pane.addTab("kept", new TableView<>());
+            final List<Tab> tabs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tabs.add(pane.addTab("tab" + i, new TableView<>()));
+            }
+            pane.splitTab(tabs.get(0), Orientation.VERTICAL);
+            for (Tab tab : tabs.subList(1, 10)) {
+                pane.removeTab(tab);
+                tabs.get(0).getTabPane().getTabs().add(tab);
+            }
+            tabs.get(0).getTabPane().getSelectionModel().select(tabs.get(5));
+
+            final TabPane group = tabs.get(0).getTabPane();
+            closed.add(group);
+            for (Tab tab : tabs) {
+                closed.add(tab);
+                if (tab.getContent() != null) { // the moved tabs lost theirs when they were removed
+                    closed.add(tab.getContent());
+                }
+            }
+            pane.removeGroup(tabs.get(0));
+            assertNotNull(kept.getTabPane());
+        });
+        assertReleased(robot, closed);
+    }
+
+    @Test
+    void remove_all_other_tabs_and_groups_test(FxRobot robot) {
+        final List<Object> closed = new ArrayList<>();
+        robot.interact(() -> {
+            final List<Tab> tabs = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                tabs.add(pane.addTab("tab" + i, new TableView<>()));
+            }
+            for (int i = 1; i < 5; i++) {
+                pane.splitTab(tabs.get(i * 4), i % 2 == 0 ? Orientation.VERTICAL : Orientation.HORIZONTAL);
+            }
+            final Tab kept = tabs.get(0);
+            for (Tab tab : tabs) {
+                tab.getTabPane().getSelectionModel().select(tab);
+                if (tab != kept) {
+                    closed.add(tab);
+                    closed.add(tab.getContent());
+                }
+                if (tab != kept && tab.getTabPane() != kept.getTabPane()) {
+                    closed.add(tab.getTabPane());
+                }
+            }
+
+            pane.removeAllOtherGroups(kept);
+            pane.removeAllOtherTabsInGroup(kept);
+            assertEquals(1, kept.getTabPane().getTabs().size());
+        });
+        assertReleased(robot, closed);
+    }
+
+    @Test
+    void remove_all_test(FxRobot robot) {
+        final List<Object> closed = new ArrayList<>();
+        robot.interact(() -> {
+            final List<Tab> tabs = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                tabs.add(pane.addTab("tab" + i, new TableView<>()));
+            }
+            for (int i = 1; i < 5; i++) {
+                pane.splitTab(tabs.get(i * 4), Orientation.VERTICAL);
+            }
+            pane.getModel(); // assigns model ids to every group and split
+            for (Tab tab : tabs) {
+                closed.add(tab);
+                closed.add(tab.getTabPane());
+            }
+
+            pane.removeAll();
+        });
+        assertReleased(robot, closed);
+    }
+
+    private static void press(@NotNull Tab tab) {
+        Event.fireEvent(tab.getGraphic(), new MouseEvent(MouseEvent.MOUSE_PRESSED, 0, 0, 0, 0, MouseButton.PRIMARY,
+                1, false, false, false, false, true, false, false, false, false, true, null));
+    }
+
+    // nothing the pane keeps refers to the closed tabs, contents and groups (so they can be collected), and the closed
+    // tabs no longer hold their content or menu
+    private void assertReleased(@NotNull FxRobot robot, @NotNull List<Object> closed) {
+        WaitForAsyncUtils.waitForFxEvents(); // the deferred cleanup and visibility checks
+        robot.interact(() -> {
+            final DockableSkin skin = pane.ensureSkin();
+            for (Object value : closed) {
+                assertFalse(skin.holds(value), () -> "still held: " + value);
+                if (value instanceof Tab) {
+                    assertNull(((Tab) value).getContent());
+                    assertNull(((Tab) value).getContextMenu());
+                }
+            }
+        });
+    }
+
+}
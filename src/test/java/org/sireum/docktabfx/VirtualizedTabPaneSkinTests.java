@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2020, Matthew Weis, Kansas State University
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sireum.docktabfx;
+
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.geometry.Bounds;
+import javafx.geometry.Orientation;
+import javafx.geometry.Side;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TextArea;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.PickResult;
+import javafx.scene.layout.Region;
+import javafx.stage.Stage;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.testfx.api.FxRobot;
+import org.testfx.framework.junit5.ApplicationExtension;
+import org.testfx.framework.junit5.Start;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link VirtualizedTabPaneSkin} as the skin of every group of a {@link DockablePane} (shown in a stage of
+ * its own by shown_headers_test and nested_tab_pane_content_test only).
+ */
+@ExtendWith(ApplicationExtension.class)
+public class VirtualizedTabPaneSkinTests {
+
+    private DockablePane pane;
+
+    @Start
+    private void start(@NotNull Stage stage) {
+        this.pane = new DockablePane();
+        this.pane.setTabPaneFactory(VirtualizedTabPaneSkin.createTabPaneFactory());
+    }
+
+    @Test
+    void headers_follow_tabs_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Map<String, Node> contents = new LinkedHashMap<>();
+            for (int i = 0; i < 5_000; i++) {
+                contents.put("tab" + i, new TextArea("tab " + i));
+            }
+            final List<Tab> tabs = pane.addTabs(contents);
+            final TabPane tabPane = tabs.get(0).getTabPane();
+            final VirtualizedTabPaneSkin skin = (VirtualizedTabPaneSkin) tabPane.getSkin();
+
+            // the header strip lists the tabs themselves, only the selected content is shown
+            assertSame(tabPane.getTabs(), skin.getHeaders().getItems());
+            assertSame(tabs.get(0), skin.getHeaders().getSelectionModel().getSelectedItem());
+            assertEquals(List.of(tabs.get(0).getContent()), skin.getContentArea().getChildren());
+
+            // selecting a header selects its tab, and the other way around
+            skin.getHeaders().getSelectionModel().select(tabs.get(4_000));
+            assertTrue(tabs.get(4_000).isSelected());
+            tabPane.getSelectionModel().select(tabs.get(10));
+            assertSame(tabs.get(10), skin.getHeaders().getSelectionModel().getSelectedItem());
+            assertEquals(List.of(tabs.get(10).getContent()), skin.getContentArea().getChildren());
+
+            // reordering keeps the tab open (and registered)
+            skin.moveTab(tabs.get(10), 2_500);
+            assertSame(tabs.get(10), tabPane.getTabs().get(2_500));
+            assertTrue(tabs.get(10).isSelected());
+            assertSame(tabs.get(10), pane.getTab(DockablePane.getTabId(tabs.get(10))));
+            assertEquals(5_000, tabPane.getTabs().size());
+        });
+    }
+
+    @Test
+    void header_cell_test(FxRobot robot) {
+        robot.interact(() -> {
+            final Tab first = pane.addTab("first", new Region());
+            final Tab second = pane.addTab("second", new Region());
+            final VirtualizedTabPaneSkin skin = (VirtualizedTabPaneSkin) first.getTabPane().getSkin();
+
+            // a recycled header shows the tab's title (not its graphic, which can't be in two cells) and is tagged with
+            // its tab
+            final ListCell<Tab> cell = skin.getHeaders().getCellFactory().call(skin.getHeaders());
+            cell.updateListView(skin.getHeaders());
+            cell.updateIndex(1);
+            assertEquals("second", cell.getText());
+            assertNull(cell.getGraphic());
+            assertSame(second, cell.getProperties().get(Tab.class));
+            cell.updateIndex(0);
+            assertEquals("first", cell.getText());
+            assertSame(first, cell.getProperties().get(Tab.class));
+            DockableSkin.setTitle(first, "renamed");
+            assertEquals("renamed", cell.getText());
+            cell.updateIndex(5);
+            assertNull(cell.getText());
+            assertNull(cell.getProperties().get(Tab.class));
+        });
+    }
+
+    @Test
+    void shown_headers_test(FxRobot robot) {
+        final Stage[] stage = new Stage[1];
+        final List<Tab> tabs = new ArrayList<>();
+        robot.interact(() -> {
+            final Map<String, Node> contents = new LinkedHashMap<>();
+            for (int i = 0; i < 5_000; i++) {
+                contents.put("tab" + i, new Region());
+            }
+            tabs.addAll(pane.addTabs(contents));
+            pane.splitTab(tabs.get(4_999), Orientation.VERTICAL);
+            stage[0] = new Stage();
+            stage[0].setScene(new Scene(pane, 800, 600));
+            stage[0].show();
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+
+        try {
+            robot.interact(() -> {
+                final TabPane tabPane = tabs.get(0).getTabPane();
+                final VirtualizedTabPaneSkin skin = (VirtualizedTabPaneSkin) tabPane.getSkin();
+
+                // only the headers that fit are built, each showing its tab's title (and none adopts the tab's label)
+                final List<ListCell<Tab>> cells = headerCells(skin);
+                assertFalse(cells.isEmpty());
+                assertTrue(cells.size() < 100, "cells: " + cells.size()); // of 4999
+                for (ListCell<Tab> cell : cells) {
+                    assertEquals(DockableSkin.getTitle(cell.getItem()), cell.getText());
+                    assertNull(cell.getGraphic());
+                }
+                assertTrue(tabs.stream().allMatch(tab -> tab.getGraphic().getParent() == null));
+
+                // dragging the second header onto the fourth reorders the tabs
+                final Tab dragged = tabs.get(1);
+                final ListCell<Tab> pressed = cellOf(skin, dragged);
+                fire(pressed, pressed, MouseEvent.MOUSE_PRESSED);
+                fire(pressed, cellOf(skin, tabs.get(3)), MouseEvent.MOUSE_DRAGGED);
+                fire(pressed, cellOf(skin, tabs.get(3)), MouseEvent.MOUSE_RELEASED);
+                assertSame(dragged, tabPane.getTabs().get(3));
+                assertTrue(dragged.isSelected());
+
+                // dragging a header onto another group's header moves the tab there
+                final TabPane other = tabs.get(4_999).getTabPane();
+                assertNotSame(tabPane, other);
+                final ListCell<Tab> target = cellOf((VirtualizedTabPaneSkin) other.getSkin(), tabs.get(4_999));
+                final ListCell<Tab> pressedAgain = cellOf(skin, dragged);
+                fire(pressedAgain, pressedAgain, MouseEvent.MOUSE_PRESSED);
+                fire(pressedAgain, target, MouseEvent.MOUSE_DRAGGED);
+                fire(pressedAgain, target, MouseEvent.MOUSE_RELEASED);
+                assertSame(other, dragged.getTabPane());
+                assertEquals(4_998, tabPane.getTabs().size());
+            });
+        } finally {
+            robot.interact(stage[0]::close);
+        }
+    }
+
+    @Test
+    void nested_tab_pane_content_test(FxRobot robot) {
+        final Stage[] stage = new Stage[1];
+        robot.interact(() -> {
+            // a tab whose content has TabPane headers of its own, at the bottom
+            final TabPane nested = new TabPane(new Tab("nested", new Region()));
+            nested.setSide(Side.BOTTOM);
+            pane.addTab("outer", nested);
+            stage[0] = new Stage();
+            stage[0].setScene(new Scene(pane, 800, 600));
+            stage[0].show();
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+
+        try {
+            // the group's header strip is its own (at the top), so the left edge docks to the left
+            robot.interact(() -> {
+                final DropZoneIndex.DropZone zone = pane.ensureSkin().findDropZone(20, 300);
+                assertNotNull(zone);
+                assertEquals(Side.LEFT, zone.side);
+            });
+        } finally {
+            robot.interact(stage[0]::close);
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static List<ListCell<Tab>> headerCells(@NotNull VirtualizedTabPaneSkin skin) {
+        final List<ListCell<Tab>> cells = new ArrayList<>();
+        for (Node node : skin.getHeaders().lookupAll(".tab")) {
+            if (node instanceof ListCell && node.isVisible() && ((ListCell<Tab>) node).getItem() != null) {
+                cells.add((ListCell<Tab>) node);
+            }
+        }
+        return cells;
+    }
+
+    @NotNull
+    private static ListCell<Tab> cellOf(@NotNull VirtualizedTabPaneSkin skin, @NotNull Tab tab) {
+        return headerCells(skin).stream().filter(cell -> cell.getItem() == tab).findFirst().orElseThrow();
+    }
+
+    // fires a mouse event at the middle of over, the way the scene does while the mouse button pressed on pressed is
+    // held: the event goes to pressed (and bubbles up to its TabPane), and picks what is under the pointer
+    private static void fire(@NotNull ListCell<Tab> pressed, @NotNull ListCell<Tab> over,
+                             @NotNull EventType<MouseEvent> type) {
+        final Bounds bounds = over.localToScene(over.getLayoutBounds());
+        final double x = bounds.getCenterX();
+        final double y = bounds.getCenterY();
+        Event.fireEvent(pressed, new MouseEvent(type, x, y, x, y, MouseButton.PRIMARY, 1, false, false, false, false,
+                true, false, false, false, false, false, new PickResult(over, x, y)));
+    }
+
+    @Test
+    void lazy_content_and_split_test(FxRobot robot) {
+        robot.interact(() -> {
+            pane.addTab("first", new Region());
+            final Tab lazy = pane.addTab("lazy", TextArea::new);
+            assertNull(lazy.getContent());
+
+            // the new group uses the same skin, and shows the content once it is built on selection
+            pane.splitTab(lazy, Orientation.VERTICAL);
+            final VirtualizedTabPaneSkin skin = (VirtualizedTabPaneSkin) lazy.getTabPane().getSkin();
+            assertNotNull(lazy.getContent());
+            assertEquals(List.of(lazy.getContent()), skin.getContentArea().getChildren());
+
+            pane.removeTab(lazy);
+            assertTrue(skin.getContentArea().getChildren().isEmpty());
+        });
+    }
+
+}